@@ -0,0 +1,10 @@
+package com.example.apartamentos.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Habilita las tareas @Scheduled (barridos y mantenimiento periódico)
+@Configuration
+@EnableScheduling
+public class ProgramacionConfig {
+}
@@ -1,5 +1,7 @@
 package com.example.apartamentos.controllers;
 
+import com.example.apartamentos.dto.ClienteResumen;
+import com.example.apartamentos.dto.PaginaCursor;
 import com.example.apartamentos.models.ClienteModel;
 import com.example.apartamentos.services.ClienteService;
 import jakarta.validation.Valid;
@@ -7,7 +9,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -19,8 +20,9 @@ public class ClienteController {
 
     // Obtener todos los clientes
     @GetMapping
-    public List<ClienteModel> getAllClientes() {
-        return clienteService.getAllClientes();
+    public PaginaCursor<ClienteResumen> getAllClientes(@RequestParam(required = false) String cursor,
+                                                       @RequestParam(required = false) Integer limite) {
+        return clienteService.getAllClientes(cursor, limite);
     }
 
     // Obtener un cliente por ID
@@ -1,12 +1,13 @@
 package com.example.apartamentos.controllers;
 
-import java.util.List;
 import java.util.Optional;
 
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import com.example.apartamentos.dto.DisponibilidadResumen;
+import com.example.apartamentos.dto.PaginaCursor;
 import com.example.apartamentos.models.DisponibilidadModel;
 import com.example.apartamentos.services.DisponibilidadService;
 
@@ -19,8 +20,9 @@ public class DisponibilidadController {
     private DisponibilidadService disponibilidadService;
 
     @GetMapping
-    public List<DisponibilidadModel> getAllDisponibilidades() {
-        return disponibilidadService.getAllDisponibilidades();
+    public PaginaCursor<DisponibilidadResumen> getAllDisponibilidades(@RequestParam(required = false) String cursor,
+                                                                    @RequestParam(required = false) Integer limite) {
+        return disponibilidadService.getAllDisponibilidades(cursor, limite);
     }
 
     @GetMapping("/{id}")
@@ -1,11 +1,15 @@
 package com.example.apartamentos.controllers;
 
+import com.example.apartamentos.dto.MensajeConversacion;
+import com.example.apartamentos.dto.MensajeResumen;
+import com.example.apartamentos.dto.PaginaCursor;
 import com.example.apartamentos.models.MensajeModel;
 import com.example.apartamentos.services.MensajeService;
 import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -19,9 +23,11 @@ public class MensajeController {
         this.mensajeService = mensajeService;
     }
 
+    // Listado con extractos; el contenido completo está en /mensajes/{id}
     @GetMapping
-    public List<MensajeModel> getAllMensajes() {
-        return mensajeService.getAllMensajes();
+    public PaginaCursor<MensajeConversacion> getAllMensajes(@RequestParam(required = false) String cursor,
+                                                     @RequestParam(required = false) Integer limite) {
+        return mensajeService.getAllMensajes(cursor, limite);
     }
 
     @GetMapping("/{id}")
@@ -29,6 +35,60 @@ public class MensajeController {
         return mensajeService.getMensajeById(id);
     }
 
+    // Bandeja de entrada del cliente, más recientes primero, paginada por cursor
+    @GetMapping("/bandeja/{idCliente}")
+    public PaginaCursor<MensajeResumen> getBandeja(@PathVariable Long idCliente,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Integer limite) {
+        return mensajeService.getBandeja(idCliente, cursor, limite);
+    }
+
+    // Contador para el aviso de mensajes nuevos; se lee de mensajes_no_leidos, sin contar mensajes
+    @GetMapping("/bandeja/{idCliente}/no-leidos")
+    public ResponseEntity<Map<String, Object>> getNoLeidos(@PathVariable Long idCliente) {
+        return ResponseEntity.ok(Map.of("idCliente", idCliente, "noLeidos", mensajeService.getNoLeidos(idCliente)));
+    }
+
+    // Conversación entre dos clientes, más recientes primero
+    @GetMapping("/conversacion")
+    public PaginaCursor<MensajeConversacion> getConversacion(@RequestParam Long clienteA,
+                                                             @RequestParam Long clienteB,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer limite) {
+        return mensajeService.getConversacion(clienteA, clienteB, cursor, limite);
+    }
+
+    @GetMapping("/reservacion/{idReservacion}")
+    public PaginaCursor<MensajeConversacion> getConversacionDeReservacion(@PathVariable Long idReservacion,
+                                                                          @RequestParam(required = false) String cursor,
+                                                                          @RequestParam(required = false) Integer limite) {
+        return mensajeService.getConversacionDeReservacion(idReservacion, cursor, limite);
+    }
+
+    @PutMapping("/{id}/leido")
+    public ResponseEntity<Void> marcarLeido(@PathVariable Integer id) {
+        mensajeService.marcarLeido(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Marca leída de una vez la conversación que el lector tiene con otro cliente; con 'hasta'
+    // solo los mensajes con id menor o igual (lo que el lector alcanzó a ver)
+    @PutMapping("/conversacion/leidos")
+    public ResponseEntity<Map<String, Object>> marcarConversacionLeida(@RequestParam Long lector,
+                                                                       @RequestParam Long otro,
+                                                                       @RequestParam(required = false) Integer hasta) {
+        int marcados = mensajeService.marcarConversacionLeida(lector, otro, hasta);
+        return ResponseEntity.ok(Map.of("marcados", marcados, "noLeidos", mensajeService.getNoLeidos(lector)));
+    }
+
+    @PutMapping("/reservacion/{idReservacion}/leidos")
+    public ResponseEntity<Map<String, Object>> marcarReservacionLeida(@PathVariable Long idReservacion,
+                                                                      @RequestParam Long lector,
+                                                                      @RequestParam(required = false) Integer hasta) {
+        int marcados = mensajeService.marcarReservacionLeida(lector, idReservacion, hasta);
+        return ResponseEntity.ok(Map.of("marcados", marcados, "noLeidos", mensajeService.getNoLeidos(lector)));
+    }
+
     @PostMapping
     public MensajeModel saveMensaje(@Valid @RequestBody MensajeModel mensaje) {
         return mensajeService.saveMensaje(mensaje);
@@ -0,0 +1,34 @@
+package com.example.apartamentos.controllers;
+
+import com.example.apartamentos.services.NotificacionesTiempoReal;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/notificaciones")
+@CrossOrigin(origins = "*")
+public class NotificacionController {
+
+    private final NotificacionesTiempoReal notificaciones;
+
+    public NotificacionController(NotificacionesTiempoReal notificaciones) {
+        this.notificaciones = notificaciones;
+    }
+
+    // Canal SSE del cliente: eventos "mensaje" (mensaje recibido) y "reservacion" (cambio de estado
+    // o fechas de una de sus reservaciones). Al reconectarse conviene recargar la bandeja y las
+    // reservaciones, porque los eventos emitidos mientras estuvo desconectado no se repiten
+    @GetMapping(path = "/{idCliente}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter suscribir(@PathVariable Long idCliente) {
+        return notificaciones.suscribir(idCliente);
+    }
+
+    @GetMapping("/estadisticas")
+    public ResponseEntity<Map<String, Object>> estadisticas() {
+        return ResponseEntity.ok(notificaciones.estadisticas());
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.apartamentos.controllers;
 
+import com.example.apartamentos.dto.PagoResumen;
+import com.example.apartamentos.dto.PaginaCursor;
 import com.example.apartamentos.models.PagoModel;
 import com.example.apartamentos.services.PagoService;
 import jakarta.validation.Valid;
@@ -7,7 +9,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -19,8 +20,9 @@ public class PagoController {
 
     // ✅ Obtener todos los pagos
     @GetMapping
-    public List<PagoModel> getAllPagos() {
-        return pagoService.getAllPagos();
+    public PaginaCursor<PagoResumen> getAllPagos(@RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer limite) {
+        return pagoService.getAllPagos(cursor, limite);
     }
 
     // ✅ Obtener un pago por ID
@@ -1,22 +1,47 @@
 package com.example.apartamentos.controllers;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.apartamentos.dto.FiltroPropiedades;
+import com.example.apartamentos.dto.PaginaCursor;
+import com.example.apartamentos.dto.PropiedadCercana;
+import com.example.apartamentos.dto.PropiedadDetalle;
+import com.example.apartamentos.dto.PropiedadResumen;
+import com.example.apartamentos.dto.RendimientoMes;
+import com.example.apartamentos.dto.ResenaPublicada;
+import com.example.apartamentos.dto.ResultadoBusqueda;
+import com.example.apartamentos.models.Comodidad;
 import com.example.apartamentos.models.PropiedadModel;
+import com.example.apartamentos.models.PropiedadModel.EstadoHab;
+import com.example.apartamentos.services.BusquedaGeografica;
+import com.example.apartamentos.services.BusquedaPropiedades;
+import com.example.apartamentos.services.ExportacionDatos;
 import com.example.apartamentos.services.PropiedadService;
+import com.example.apartamentos.services.RendimientoMensual;
+import com.example.apartamentos.services.ResenaService;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 @RestController
 @RequestMapping("/propiedades")
@@ -25,20 +50,48 @@ public class PropiedadController {
     @Autowired
     private PropiedadService propiedadService;
 
+    @Autowired
+    private BusquedaGeografica busquedaGeografica;
+
+    @Autowired
+    private BusquedaPropiedades busquedaPropiedades;
+
+    @Autowired
+    private ExportacionDatos exportacionDatos;
+
+    @Autowired
+    private ResenaService resenaService;
+
+    @Autowired
+    private RendimientoMensual rendimientoMensual;
+
     // Aquí irán los métodos para manejar las solicitudes HTTP relacionadas con las propiedades
     // Obtener todas las propiedades, obtener por ID, crear, actualizar, eliminar, etc.
     
     //Recuperar todas la propiedades
     @GetMapping
-    public List<PropiedadModel> getAllPropiedades() {
-        return propiedadService.getAllPropiedades();
+    public PaginaCursor<PropiedadResumen> getAllPropiedades(@RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false) Integer limite) {
+        return propiedadService.getAllPropiedades(cursor, limite);
+    }
+
+    // Exportar todas las propiedades (NDJSON o CSV) escribiendo fila por fila, sin armar la lista en memoria
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarPropiedades(
+            @RequestParam(defaultValue = "ndjson") ExportacionDatos.Formato formato) {
+        StreamingResponseBody cuerpo = salida -> exportacionDatos.exportarPropiedades(formato, salida);
+        return ResponseEntity.ok()
+            .contentType(formato.tipoContenido())
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("propiedades." + formato).build().toString())
+            .body(cuerpo);
     }
 
     //Propiedad por ID
     //... Similar a ClienteContrel
     @GetMapping("/{id}")
-    public ResponseEntity<PropiedadModel> getPropiedadesById(@PathVariable Long id) {
-        Optional<PropiedadModel> propiedad = propiedadService.getPropiedadById(id);
+    public ResponseEntity<PropiedadDetalle> getPropiedadesById(@PathVariable Long id) {
+        Optional<PropiedadDetalle> propiedad = propiedadService.getDetallePropiedad(id);
         return propiedad.map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -49,10 +102,26 @@ public class PropiedadController {
         return propiedadService.savePropiedad(propiedad);
     }
 
+    // Reseñas de la propiedad, más recientes primero, paginadas por cursor
+    @GetMapping("/{id}/resenas")
+    public PaginaCursor<ResenaPublicada> getResenasDePropiedad(@PathVariable Long id,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(required = false) Integer limite) {
+        return resenaService.getResenasDePropiedad(id, cursor, limite);
+    }
+
+    // Ingresos y ocupación por mes (desde y hasta como aaaa-mm); lee una fila precalculada por mes
+    @GetMapping("/{id}/rendimiento")
+    public List<RendimientoMes> getRendimiento(@PathVariable Long id,
+                                               @RequestParam YearMonth desde,
+                                               @RequestParam YearMonth hasta) {
+        return rendimientoMensual.consultar(id, desde, hasta);
+    }
+
     // Actualizar propiedad existente
     @PutMapping("/{id}")
     public ResponseEntity<PropiedadModel> updatePropiedad(@PathVariable Long id, @Valid @RequestBody PropiedadModel propiedadDetails) {
-        Optional<PropiedadModel> propiedadOptional = propiedadService.getPropiedadById(id);
+        Optional<PropiedadModel> propiedadOptional = propiedadService.getPropiedadParaEditar(id);
         if (propiedadOptional.isPresent()) {
             PropiedadModel propiedadToUpdate = propiedadOptional.get();
             propiedadToUpdate.setDireccion(propiedadDetails.getDireccion());
@@ -82,10 +151,88 @@ public class PropiedadController {
     // ACTIVIDAD: Crea un metodo para Recuperar propiedades por tipo
 
      @GetMapping("/tipo/{tipo}")
-    public List<PropiedadModel> getPropiedadesByTipo(@PathVariable String tipo) {
+    public List<PropiedadResumen> getPropiedadesByTipo(@PathVariable String tipo) {
         return propiedadService.getPropiedadesByTipo(tipo);
     }
 
+    // Métricas de la caché de propiedades (aciertos, fallos, expulsiones) para dimensionarla
+    @GetMapping("/cache/estadisticas")
+    public ResponseEntity<Map<String, Object>> obtenerEstadisticasCache() {
+        return ResponseEntity.ok(propiedadService.obtenerEstadisticasCache());
+    }
+
+    // Propiedades libres para un rango de fechas (una sola consulta en lugar de una por propiedad)
+    @GetMapping("/disponibles")
+    public ResponseEntity<Map<String, Object>> buscarDisponibles(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaEntrada,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaSalida,
+            @RequestParam(required = false) String ciudad,
+            @RequestParam(required = false) Integer capacidad,
+            @RequestParam(required = false) Double precioMin,
+            @RequestParam(required = false) Double precioMax,
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "20") int tamano) {
+
+        Slice<PropiedadResumen> disponibles = propiedadService.buscarDisponibles(
+            fechaEntrada, fechaSalida, ciudad, capacidad, precioMin, precioMax, pagina, tamano);
+        return ResponseEntity.ok(Map.of(
+            "propiedades", disponibles.getContent(),
+            "pagina", disponibles.getNumber(),
+            "tamano", disponibles.getSize(),
+            "hayMas", disponibles.hasNext()
+        ));
+    }
+
+    // Búsqueda con texto libre (q) y filtros opcionales, orden, paginación por cursor y conteos por faceta.
+    // Con q el orden por defecto es por relevancia; sin q, por id
+    @GetMapping("/buscar")
+    public ResultadoBusqueda buscar(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String ciudad,
+            @RequestParam(required = false) String pais,
+            @RequestParam(required = false) EstadoHab estado,
+            @RequestParam(required = false) Integer capacidad,
+            @RequestParam(required = false) Integer habitaciones,
+            @RequestParam(required = false) Integer banos,
+            @RequestParam(required = false) Double precioMin,
+            @RequestParam(required = false) Double precioMax,
+            @RequestParam(required = false) Set<Comodidad> comodidades,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaEntrada,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaSalida,
+            @RequestParam(required = false) BusquedaPropiedades.Orden orden,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite) {
+
+        FiltroPropiedades filtro = new FiltroPropiedades(q, ciudad, pais, estado, capacidad, habitaciones, banos,
+            precioMin, precioMax, comodidades, fechaEntrada, fechaSalida);
+        return busquedaPropiedades.buscar(filtro, orden, cursor, limite);
+    }
+
+    // Propiedades a menos de radioKm de un punto, ordenadas por distancia
+    @GetMapping("/cerca")
+    public List<PropiedadCercana> buscarCerca(
+            @RequestParam double latitud,
+            @RequestParam double longitud,
+            @RequestParam double radioKm,
+            @RequestParam(required = false) Set<Comodidad> comodidades,
+            @RequestParam(required = false) Integer limite) {
+        return busquedaGeografica.cerca(latitud, longitud, radioKm, comodidades, limite);
+    }
+
+    // Propiedades dentro del área visible del mapa; con latitud y longitud se ordenan por distancia
+    @GetMapping("/area")
+    public List<PropiedadCercana> buscarEnArea(
+            @RequestParam double sur,
+            @RequestParam double oeste,
+            @RequestParam double norte,
+            @RequestParam double este,
+            @RequestParam(required = false) Double latitud,
+            @RequestParam(required = false) Double longitud,
+            @RequestParam(required = false) Set<Comodidad> comodidades,
+            @RequestParam(required = false) Integer limite) {
+        return busquedaGeografica.enArea(sur, oeste, norte, este, latitud, longitud, comodidades, limite);
+    }
+
    
 
     
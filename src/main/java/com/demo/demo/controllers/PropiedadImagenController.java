@@ -1,12 +1,13 @@
 package com.example.apartamentos.controllers;
 
-import java.util.List;
 import java.util.Optional;
 
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import com.example.apartamentos.dto.ImagenResumen;
+import com.example.apartamentos.dto.PaginaCursor;
 import com.example.apartamentos.models.PropiedadimagenModel;
 import com.example.apartamentos.services.PropiedadImagenService;
 
@@ -19,8 +20,9 @@ public class PropiedadImagenController {
     private PropiedadImagenService imagenService;
 
     @GetMapping
-    public List<PropiedadimagenModel> getAllImagenes() {
-        return imagenService.getAllImagenes();
+    public PaginaCursor<ImagenResumen> getAllImagenes(@RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer limite) {
+        return imagenService.getAllImagenes(cursor, limite);
     }
 
     @GetMapping("/{id}")
@@ -1,12 +1,13 @@
 package com.example.apartamentos.controllers;
 
+import com.example.apartamentos.dto.PaginaCursor;
+import com.example.apartamentos.dto.ResenaPublicada;
 import com.example.apartamentos.models.ResenaModel;
 import com.example.apartamentos.services.ResenaService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -16,10 +17,11 @@ public class ResenaController {
     @Autowired
     private ResenaService resenaService;
 
-    // Recuperar todas las reseñas
+    // Recuperar todas las reseñas (con extractos; el texto completo está en /resenas/{id})
     @GetMapping
-    public List<ResenaModel> getAllResenas() {
-        return resenaService.getAllResenas();
+    public PaginaCursor<ResenaPublicada> getAllResenas(@RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Integer limite) {
+        return resenaService.getAllResenas(cursor, limite);
     }
 
     // Obtener una reseña por ID
@@ -7,11 +7,20 @@ import java.util.Optional;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.apartamentos.dto.PaginaCursor;
+import com.example.apartamentos.dto.ReservacionDetalle;
+import com.example.apartamentos.dto.ReservacionResumen;
+import com.example.apartamentos.dto.VentanaLibre;
 import com.example.apartamentos.models.ReservacionModel;
 import com.example.apartamentos.models.ReservacionModel.EstadoReservacion;
+import com.example.apartamentos.services.CalendarioOcupacion;
+import com.example.apartamentos.services.ExportacionDatos;
 import com.example.apartamentos.services.ReservacionService;
 
 @RestController
@@ -22,15 +31,31 @@ public class ReservacionController {
     @Autowired
     private ReservacionService reservacionService;
 
+    @Autowired
+    private ExportacionDatos exportacionDatos;
+
     // 📥 Obtener todas las reservaciones
     @GetMapping
-    public List<ReservacionModel> getAllReservaciones() {
-        return reservacionService.getAllReservaciones();
+    public PaginaCursor<ReservacionResumen> getAllReservaciones(@RequestParam(required = false) String cursor,
+                                                                @RequestParam(required = false) Integer limite) {
+        return reservacionService.getAllReservaciones(cursor, limite);
+    }
+
+    // 📤 Exportar todas las reservaciones (NDJSON o CSV) escribiendo fila por fila
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarReservaciones(
+            @RequestParam(defaultValue = "ndjson") ExportacionDatos.Formato formato) {
+        StreamingResponseBody cuerpo = salida -> exportacionDatos.exportarReservaciones(formato, salida);
+        return ResponseEntity.ok()
+            .contentType(formato.tipoContenido())
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("reservaciones." + formato).build().toString())
+            .body(cuerpo);
     }
 
     // 🔍 Obtener una reservación por ID
     @GetMapping("/{id}")
-    public Optional<ReservacionModel> getReservacionById(@PathVariable("id") Long id) {
+    public Optional<ReservacionDetalle> getReservacionById(@PathVariable("id") Long id) {
         return reservacionService.getReservacionById(id);
     }
 
@@ -97,31 +122,31 @@ public class ReservacionController {
 
     // 6. Obtener reservaciones por cliente
     @GetMapping("/cliente/{idCliente}")
-    public ResponseEntity<List<ReservacionModel>> obtenerReservacionesPorCliente(@PathVariable Long idCliente) {
-        List<ReservacionModel> reservaciones = reservacionService.obtenerReservacionesPorCliente(idCliente);
+    public ResponseEntity<List<ReservacionResumen>> obtenerReservacionesPorCliente(@PathVariable Long idCliente) {
+        List<ReservacionResumen> reservaciones = reservacionService.obtenerReservacionesPorCliente(idCliente);
         return ResponseEntity.ok(reservaciones);
     }
 
     // 7. Obtener reservaciones por propiedad
     @GetMapping("/propiedad/{idPropiedad}")
-    public ResponseEntity<List<ReservacionModel>> obtenerReservacionesPorPropiedad(@PathVariable Long idPropiedad) {
-        List<ReservacionModel> reservaciones = reservacionService.obtenerReservacionesPorPropiedad(idPropiedad);
+    public ResponseEntity<List<ReservacionResumen>> obtenerReservacionesPorPropiedad(@PathVariable Long idPropiedad) {
+        List<ReservacionResumen> reservaciones = reservacionService.obtenerReservacionesPorPropiedad(idPropiedad);
         return ResponseEntity.ok(reservaciones);
     }
 
     // 8. Obtener reservaciones por estado
     @GetMapping("/estado/{estado}")
-    public ResponseEntity<List<ReservacionModel>> obtenerReservacionesPorEstado(@PathVariable EstadoReservacion estado) {
-        List<ReservacionModel> reservaciones = reservacionService.obtenerReservacionesPorEstado(estado);
+    public ResponseEntity<List<ReservacionResumen>> obtenerReservacionesPorEstado(@PathVariable EstadoReservacion estado) {
+        List<ReservacionResumen> reservaciones = reservacionService.obtenerReservacionesPorEstado(estado);
         return ResponseEntity.ok(reservaciones);
     }
 
     // 9. Obtener reservaciones entre fechas
     @GetMapping("/fechas")
-    public ResponseEntity<List<ReservacionModel>> obtenerReservacionesEntreFechas(
+    public ResponseEntity<List<ReservacionResumen>> obtenerReservacionesEntreFechas(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin) {
-        List<ReservacionModel> reservaciones = reservacionService.obtenerReservacionesEntreFechas(inicio, fin);
+        List<ReservacionResumen> reservaciones = reservacionService.obtenerReservacionesEntreFechas(inicio, fin);
         return ResponseEntity.ok(reservaciones);
     }
 
@@ -163,6 +188,39 @@ public class ReservacionController {
         return ResponseEntity.ok(diasOcupados);
     }
 
+    // 12b. Calendario de ocupación de varios meses (rangos ocupados por mes)
+    @GetMapping("/calendario/{idPropiedad}")
+    public ResponseEntity<List<CalendarioOcupacion.CalendarioMes>> obtenerCalendario(
+            @PathVariable Long idPropiedad,
+            @RequestParam int mes,
+            @RequestParam int anio,
+            @RequestParam(defaultValue = "1") int meses) {
+
+        List<CalendarioOcupacion.CalendarioMes> calendario =
+            reservacionService.obtenerCalendario(idPropiedad, mes, anio, meses);
+        return ResponseEntity.ok(calendario);
+    }
+
+    // 12c. Fechas flexibles: primeras estancias libres de N noches (con su precio)
+    @GetMapping("/ventanas-libres/{idPropiedad}")
+    public ResponseEntity<List<VentanaLibre>> buscarVentanasLibres(
+            @PathVariable Long idPropiedad,
+            @RequestParam int noches,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(defaultValue = "3") int meses,
+            @RequestParam(defaultValue = "10") int maximo) {
+
+        List<VentanaLibre> ventanas = reservacionService.buscarVentanasLibres(
+            idPropiedad, noches, desde != null ? desde : LocalDate.now(), meses, maximo);
+        return ResponseEntity.ok(ventanas);
+    }
+
+    // Métricas de contención al reservar
+    @GetMapping("/bloqueos/estadisticas")
+    public ResponseEntity<Map<String, Object>> obtenerEstadisticasBloqueo() {
+        return ResponseEntity.ok(reservacionService.obtenerEstadisticasBloqueo());
+    }
+
     // 13. Generar código de reserva
     @GetMapping("/generar-codigo")
     public ResponseEntity<Map<String, String>> generarCodigoReserva() {
@@ -0,0 +1,10 @@
+package com.example.apartamentos.dto;
+
+// Calificaciones de una reseña y la propiedad a la que cuentan, para mantener los agregados
+public record CalificacionesResena(
+        Long idPropiedad,
+        Integer general,
+        Integer limpieza,
+        Integer ubicacion,
+        Integer comunicacion) {
+}
@@ -0,0 +1,5 @@
+package com.example.apartamentos.dto;
+
+// Columnas de una propiedad de las que se derivan geohash y comodidadesMask, sin cargar la entidad
+public record CamposBasePropiedad(Long idPropiedad, double latitud, double longitud, String comodidades) {
+}
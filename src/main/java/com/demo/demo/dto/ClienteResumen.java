@@ -0,0 +1,13 @@
+package com.example.apartamentos.dto;
+
+import java.time.LocalDateTime;
+
+// Fila del listado de clientes: datos de contacto, sin password, INE ni dirección
+public record ClienteResumen(
+        Long id,
+        String nombres,
+        String apellidos,
+        String email,
+        String telefono,
+        LocalDateTime fechaRegistro) {
+}
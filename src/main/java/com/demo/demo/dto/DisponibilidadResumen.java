@@ -0,0 +1,12 @@
+package com.example.apartamentos.dto;
+
+import java.time.LocalDate;
+
+// Fila del listado de disponibilidades: id de la propiedad en lugar de la propiedad completa
+public record DisponibilidadResumen(
+        Long idDisponibilidad,
+        Long idPropiedad,
+        LocalDate fecha,
+        boolean disponible,
+        Double precioEspecial) {
+}
@@ -0,0 +1,9 @@
+package com.example.apartamentos.dto;
+
+// Destinatario y estado de lectura de un mensaje, para ajustar su contador de no leídos
+public record EstadoMensaje(Long idDestinatario, Boolean leido) {
+
+    public boolean noLeido() {
+        return !Boolean.TRUE.equals(leido);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.apartamentos.dto;
+
+import java.time.LocalDate;
+
+import com.example.apartamentos.models.ReservacionModel.EstadoReservacion;
+
+// Fechas, precio y estado de una reservación: lo necesario para repartirla entre los meses
+public record EstanciaReservacion(
+        LocalDate fechaEntrada,
+        LocalDate fechaSalida,
+        double precioTotal,
+        EstadoReservacion estado) {
+}
@@ -0,0 +1,26 @@
+package com.example.apartamentos.dto;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import com.example.apartamentos.models.Comodidad;
+import com.example.apartamentos.models.PropiedadModel.EstadoHab;
+
+// Filtros opcionales de la búsqueda de propiedades; null significa "sin filtro".
+// texto se busca en el índice de texto (titulo, comodidades, descripcion); comodidades exige todas las indicadas.
+// Las fechas van juntas: si se dan, solo quedan propiedades libres en ese rango.
+public record FiltroPropiedades(
+    String texto,
+    String ciudad,
+    String pais,
+    EstadoHab estado,
+    Integer capacidadMin,
+    Integer habitacionesMin,
+    Integer banosMin,
+    Double precioMin,
+    Double precioMax,
+    Set<Comodidad> comodidades,
+    LocalDate fechaEntrada,
+    LocalDate fechaSalida
+) {
+}
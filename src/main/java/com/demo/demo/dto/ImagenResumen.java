@@ -0,0 +1,5 @@
+package com.example.apartamentos.dto;
+
+// Fila del listado de imágenes: id de la propiedad en lugar de la propiedad completa
+public record ImagenResumen(Long idImagen, Long idPropiedad, String urlImagen) {
+}
@@ -0,0 +1,11 @@
+package com.example.apartamentos.dto;
+
+import java.time.LocalDate;
+
+// Proyección mínima de una reservación: solo lo necesario para saber qué días ocupa
+public record IntervaloReservacion(
+        Long idReservacion,
+        Long idPropiedad,
+        LocalDate fechaEntrada,
+        LocalDate fechaSalida) {
+}
@@ -0,0 +1,16 @@
+package com.example.apartamentos.dto;
+
+import java.time.LocalDateTime;
+
+// Mensaje en los listados (conversaciones y listado general); el contenido completo se lee con
+// GET /mensajes/{id}
+public record MensajeConversacion(
+        Integer idMensaje,
+        Long idRemitente,
+        Long idDestinatario,
+        Long idReservacion,
+        String asunto,
+        String extracto,
+        Boolean leido,
+        LocalDateTime fechaEnvio) {
+}
@@ -0,0 +1,15 @@
+package com.example.apartamentos.dto;
+
+import java.time.LocalDateTime;
+
+// Fila de la bandeja de entrada: el extracto en lugar del contenido, que se lee con GET /mensajes/{id}
+public record MensajeResumen(
+        Integer idMensaje,
+        Long idRemitente,
+        String nombreRemitente,
+        Long idReservacion,
+        String asunto,
+        String extracto,
+        Boolean leido,
+        LocalDateTime fechaEnvio) {
+}
@@ -0,0 +1,7 @@
+package com.example.apartamentos.dto;
+
+import java.time.LocalDateTime;
+
+// Propiedad y fecha de un pago: qué fila de rendimiento mensual cambia cuando el pago cambia
+public record MovimientoPago(Long idPropiedad, LocalDateTime fechaPago) {
+}
@@ -0,0 +1,103 @@
+package com.example.apartamentos.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+// Página de una paginación por llave (keyset): el cliente devuelve 'siguienteCursor' para pedir
+// la siguiente página; es null cuando ya no hay más. El cursor es opaco (el último id en base64),
+// así que pedir la página 1000 cuesta lo mismo que pedir la primera.
+public record PaginaCursor<T>(List<T> contenido, String siguienteCursor) {
+
+    // Id a partir del cual continuar (exclusivo); 0 si es la primera página
+    public static long decodificar(String cursor) {
+        String clave = decodificarClave(cursor);
+        if (clave == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(clave);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido: " + cursor);
+        }
+    }
+
+    // Como decodificar(), para listados con id int; un cursor fuera de rango es inválido (400),
+    // no un error del servidor
+    public static int decodificarEntero(String cursor) {
+        return aEntero(decodificar(cursor), cursor);
+    }
+
+    public static String codificar(long id) {
+        return codificarClave(Long.toString(id));
+    }
+
+    // Variante para llaves compuestas (por ejemplo "precio|id"); null si no hay cursor
+    public static String decodificarClave(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido: " + cursor);
+        }
+    }
+
+    public static String codificarClave(String clave) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(clave.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Llave "fecha|id" de los listados del más reciente al más antiguo; null si es la primera página
+    public static ClaveFecha decodificarFecha(String cursor) {
+        String clave = decodificarClave(cursor);
+        if (clave == null) {
+            return null;
+        }
+        try {
+            String[] partes = clave.split("\\|");
+            return new ClaveFecha(LocalDateTime.parse(partes[0]), Long.parseLong(partes[1]));
+        } catch (DateTimeParseException | NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido: " + cursor);
+        }
+    }
+
+    public record ClaveFecha(LocalDateTime fecha, long id) {
+
+        // El id para listados con id int
+        public int idEntero() {
+            return aEntero(id, fecha + "|" + id);
+        }
+    }
+
+    private static int aEntero(long id, String cursor) {
+        if (id < Integer.MIN_VALUE || id > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Cursor de paginación inválido: " + cursor);
+        }
+        return (int) id;
+    }
+
+    // Como de(), con cursor "fecha|id" de la última fila entregada
+    public static <T> PaginaCursor<T> dePorFecha(List<T> filas, int limite, Function<T, LocalDateTime> fecha,
+                                                 ToLongFunction<T> id) {
+        if (filas.size() <= limite) {
+            return new PaginaCursor<>(filas, null);
+        }
+        List<T> contenido = filas.subList(0, limite);
+        T ultima = contenido.get(limite - 1);
+        return new PaginaCursor<>(contenido, codificarClave(fecha.apply(ultima) + "|" + id.applyAsLong(ultima)));
+    }
+
+    // Construye la página a partir de hasta limite + 1 filas: la fila extra solo indica que hay más
+    public static <T> PaginaCursor<T> de(List<T> filas, int limite, ToLongFunction<T> id) {
+        if (filas.size() <= limite) {
+            return new PaginaCursor<>(filas, null);
+        }
+        List<T> contenido = filas.subList(0, limite);
+        return new PaginaCursor<>(contenido, codificar(id.applyAsLong(contenido.get(limite - 1))));
+    }
+}
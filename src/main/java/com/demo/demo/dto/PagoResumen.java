@@ -0,0 +1,19 @@
+package com.example.apartamentos.dto;
+
+import java.time.LocalDateTime;
+
+import com.example.apartamentos.models.PagoModel.EstadoPago;
+import com.example.apartamentos.models.PagoModel.MetodoPago;
+
+// Fila del listado de pagos: id de la reservación en lugar de la reservación completa y sin
+// datos_pago (TEXT)
+public record PagoResumen(
+        Long idPago,
+        Long idReservacion,
+        Double monto,
+        MetodoPago metodoPago,
+        EstadoPago estado,
+        LocalDateTime fechaPago,
+        String referenciaPago,
+        LocalDateTime fechaCreacion) {
+}
@@ -0,0 +1,5 @@
+package com.example.apartamentos.dto;
+
+// Total de pagos completados de una propiedad en un mes
+public record PagosMes(Integer anio, Integer mes, Double total) {
+}
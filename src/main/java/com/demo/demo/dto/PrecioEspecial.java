@@ -0,0 +1,7 @@
+package com.example.apartamentos.dto;
+
+import java.time.LocalDate;
+
+// Precio especial de una noche concreta (sobrescribe precio_noche de la propiedad)
+public record PrecioEspecial(LocalDate fecha, Double precio) {
+}
@@ -0,0 +1,7 @@
+package com.example.apartamentos.dto;
+
+import com.example.apartamentos.models.PropiedadModel;
+
+// Resultado de búsqueda geográfica; distanciaKm es null si la búsqueda no tiene punto de referencia
+public record PropiedadCercana(PropiedadModel propiedad, Double distanciaKm) {
+}
@@ -0,0 +1,51 @@
+package com.example.apartamentos.dto;
+
+import java.time.LocalDateTime;
+
+import com.example.apartamentos.models.PropiedadModel;
+import com.example.apartamentos.models.PropiedadModel.Calificaciones;
+import com.example.apartamentos.models.PropiedadModel.EstadoHab;
+
+// Ficha de una propiedad: todos sus datos, del propietario solo id y nombre (sin contacto ni INE)
+// y las calificaciones ya promediadas en lugar de las sumas guardadas
+public record PropiedadDetalle(
+        Long idPropiedad,
+        Long idPropietario,
+        String nombrePropietario,
+        String tipo,
+        String titulo,
+        String descripcion,
+        String direccion,
+        String ciudad,
+        String estadoFederativo,
+        int codigoPostal,
+        String pais,
+        double latitud,
+        double longitud,
+        double precioNoche,
+        int capacidad,
+        int numHabitaciones,
+        int numBanos,
+        int metrosCuadrados,
+        String comodidades,
+        String reglas,
+        EstadoHab estado,
+        LocalDateTime fechaRegistro,
+        LocalDateTime fechaActualizacion,
+        Calificaciones calificaciones) {
+
+    // Para la consulta: recibe los agregados de reseñas tal como están guardados
+    public PropiedadDetalle(Long idPropiedad, Long idPropietario, String nombrePropietario, String tipo,
+            String titulo, String descripcion, String direccion, String ciudad, String estadoFederativo,
+            int codigoPostal, String pais, double latitud, double longitud, double precioNoche, int capacidad,
+            int numHabitaciones, int numBanos, int metrosCuadrados, String comodidades, String reglas,
+            EstadoHab estado, LocalDateTime fechaRegistro, LocalDateTime fechaActualizacion,
+            Integer resenasTotal, Long sumaGeneral, Integer resenasLimpieza, Long sumaLimpieza,
+            Integer resenasUbicacion, Long sumaUbicacion, Integer resenasComunicacion, Long sumaComunicacion) {
+        this(idPropiedad, idPropietario, nombrePropietario, tipo, titulo, descripcion, direccion, ciudad,
+            estadoFederativo, codigoPostal, pais, latitud, longitud, precioNoche, capacidad, numHabitaciones,
+            numBanos, metrosCuadrados, comodidades, reglas, estado, fechaRegistro, fechaActualizacion,
+            PropiedadModel.calificaciones(resenasTotal, sumaGeneral, resenasLimpieza, sumaLimpieza,
+                resenasUbicacion, sumaUbicacion, resenasComunicacion, sumaComunicacion));
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.apartamentos.dto;
+
+import java.time.LocalDateTime;
+
+import com.example.apartamentos.models.PropiedadModel.EstadoHab;
+
+// Fila de la exportación completa de propiedades: todas las columnas escalares, con el
+// propietario como id en lugar de la entidad
+public record PropiedadExportada(
+        Long idPropiedad,
+        Long idPropietario,
+        String tipo,
+        String titulo,
+        String descripcion,
+        String direccion,
+        String ciudad,
+        String estado,
+        int codigoPostal,
+        String pais,
+        double latitud,
+        double longitud,
+        double precioNoche,
+        int capacidad,
+        int numHabitaciones,
+        int numBanos,
+        int metrosCuadrados,
+        String comodidades,
+        String reglas,
+        EstadoHab estadoHab,
+        LocalDateTime fechaRegistro,
+        LocalDateTime fechaActualizacion) {
+}
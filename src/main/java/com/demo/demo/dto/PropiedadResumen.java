@@ -0,0 +1,20 @@
+package com.example.apartamentos.dto;
+
+import com.example.apartamentos.models.PropiedadModel.EstadoHab;
+
+// Fila de los listados de propiedades: sin descripcion, reglas, comodidades ni propietario.
+// La calificación y el número de reseñas salen de los agregados guardados en la propiedad
+public record PropiedadResumen(
+        Long idPropiedad,
+        String titulo,
+        String tipo,
+        String ciudad,
+        String pais,
+        double precioNoche,
+        int capacidad,
+        int numHabitaciones,
+        int numBanos,
+        EstadoHab estado,
+        Integer resenas,
+        Double calificacion) {
+}
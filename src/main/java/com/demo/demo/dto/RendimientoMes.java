@@ -0,0 +1,14 @@
+package com.example.apartamentos.dto;
+
+import java.time.YearMonth;
+
+// Un mes del reporte de rendimiento de una propiedad; ocupacion es noches / días del mes (0 a 1)
+public record RendimientoMes(
+        YearMonth mes,
+        int noches,
+        double ocupacion,
+        double ingresoBruto,
+        int llegadas,
+        int cancelaciones,
+        double pagosCompletados) {
+}
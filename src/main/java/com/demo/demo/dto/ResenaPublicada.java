@@ -0,0 +1,19 @@
+package com.example.apartamentos.dto;
+
+import java.time.LocalDateTime;
+
+// Reseña tal como se muestra en los listados, con el nombre de quien la escribió y extractos del
+// comentario y la respuesta; el texto completo se lee con GET /resenas/{id}
+public record ResenaPublicada(
+        Integer idResena,
+        Long idPropiedad,
+        String autor,
+        Integer calificacionGeneral,
+        Integer calificacionLimpieza,
+        Integer calificacionUbicacion,
+        Integer calificacionComunicacion,
+        String extractoComentario,
+        LocalDateTime fechaResena,
+        String extractoRespuesta,
+        LocalDateTime fechaRespuesta) {
+}
@@ -0,0 +1,30 @@
+package com.example.apartamentos.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.example.apartamentos.models.ReservacionModel.EstadoReservacion;
+
+// Vista de detalle de una reservación: lo del resumen más notas, fechas de registro y estancia,
+// y los datos de contacto de la propiedad y del cliente (sin datos sensibles del cliente)
+public record ReservacionDetalle(
+        Long idReservacion,
+        String codigoReserva,
+        EstadoReservacion estado,
+        LocalDate fechaEntrada,
+        LocalDate fechaSalida,
+        int numeroHuespedes,
+        double precioTotal,
+        LocalDateTime fechaReservacion,
+        LocalDateTime fechaCheckin,
+        LocalDateTime fechaCheckout,
+        String notas,
+        Long idPropiedad,
+        String tituloPropiedad,
+        String direccionPropiedad,
+        String ciudadPropiedad,
+        Long idCliente,
+        String nombreCliente,
+        String emailCliente,
+        String telefonoCliente) {
+}
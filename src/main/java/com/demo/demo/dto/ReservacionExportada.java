@@ -0,0 +1,23 @@
+package com.example.apartamentos.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.example.apartamentos.models.ReservacionModel.EstadoReservacion;
+
+// Fila de la exportación completa de reservaciones: propiedad y cliente como ids
+public record ReservacionExportada(
+        Long idReservacion,
+        String codigoReserva,
+        Long idPropiedad,
+        Long idCliente,
+        LocalDate fechaEntrada,
+        LocalDate fechaSalida,
+        int numeroHuespedes,
+        double precioTotal,
+        EstadoReservacion estado,
+        LocalDateTime fechaReservacion,
+        LocalDateTime fechaCheckin,
+        LocalDateTime fechaCheckout,
+        String notas) {
+}
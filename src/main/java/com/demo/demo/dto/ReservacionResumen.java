@@ -0,0 +1,21 @@
+package com.example.apartamentos.dto;
+
+import java.time.LocalDate;
+
+import com.example.apartamentos.models.ReservacionModel.EstadoReservacion;
+
+// Fila de los listados de reservaciones: columnas de reservaciones más título de la propiedad y
+// nombre del cliente en la misma consulta, sin hidratar entidades ni traer notas
+public record ReservacionResumen(
+        Long idReservacion,
+        String codigoReserva,
+        Long idPropiedad,
+        String tituloPropiedad,
+        Long idCliente,
+        String nombreCliente,
+        LocalDate fechaEntrada,
+        LocalDate fechaSalida,
+        int numeroHuespedes,
+        double precioTotal,
+        EstadoReservacion estado) {
+}
@@ -0,0 +1,13 @@
+package com.example.apartamentos.dto;
+
+import java.time.LocalDate;
+
+// Reservación pendiente cuyo apartado expiró: lo justo para cancelarla y publicar el evento
+public record ReservacionVencida(
+        Long idReservacion,
+        Long idPropiedad,
+        Long idCliente,
+        LocalDate fechaEntrada,
+        LocalDate fechaSalida,
+        double precioTotal) {
+}
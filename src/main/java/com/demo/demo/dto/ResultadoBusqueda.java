@@ -0,0 +1,18 @@
+package com.example.apartamentos.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import com.example.apartamentos.models.PropiedadModel;
+
+// Página de resultados más los conteos por faceta. Cada faceta se cuenta con todos los filtros
+// salvo el suyo, para que el cliente pueda mostrar cuántas habría al cambiar esa opción.
+// Las facetas solo vienen en la primera página (sin cursor); en las siguientes son null.
+public record ResultadoBusqueda(
+    List<PropiedadModel> propiedades,
+    String siguienteCursor,
+    Map<String, Long> ciudades,
+    Map<String, Long> rangosPrecio,
+    Map<Integer, Long> habitaciones
+) {
+}
@@ -0,0 +1,5 @@
+package com.example.apartamentos.dto;
+
+// Campos de texto libre de una propiedad, para construir el índice de búsqueda sin cargar la entidad
+public record TextoPropiedad(Long idPropiedad, String titulo, String descripcion, String comodidades) {
+}
@@ -0,0 +1,7 @@
+package com.example.apartamentos.dto;
+
+import java.time.LocalDate;
+
+// Estancia libre encontrada por la búsqueda de fechas flexibles, ya cotizada
+public record VentanaLibre(LocalDate fechaEntrada, LocalDate fechaSalida, double precioTotal) {
+}
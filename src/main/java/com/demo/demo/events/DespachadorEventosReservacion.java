@@ -0,0 +1,77 @@
+package com.example.apartamentos.events;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import com.example.apartamentos.util.TrasCommit;
+
+import jakarta.annotation.PreDestroy;
+
+// Despachador en proceso de eventos de reservación.
+// - Dentro de una transacción el evento se retiene hasta el commit (y se descarta si hay rollback).
+// - La entrega a los suscriptores ocurre en un único hilo propio: quien publica no espera
+//   y los eventos llegan en orden, lo que permite a índices y cachés aplicarlos como deltas.
+// - Los suscriptores síncronos (índices en memoria) lo reciben antes, en el hilo que confirmó:
+//   una consulta del mismo cliente justo después de su cambio ya no ve el estado anterior.
+@Component
+public class DespachadorEventosReservacion {
+
+    private static final Logger log = LoggerFactory.getLogger(DespachadorEventosReservacion.class);
+
+    private final ObjectProvider<SuscriptorEventosReservacion> suscriptores;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "eventos-reservacion");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private final AtomicLong publicados = new AtomicLong();
+    private final AtomicLong fallidos = new AtomicLong();
+
+    public DespachadorEventosReservacion(ObjectProvider<SuscriptorEventosReservacion> suscriptores) {
+        this.suscriptores = suscriptores;
+    }
+
+    public void publicar(ReservacionEvento evento) {
+        TrasCommit.ejecutar(() -> despachar(evento));
+    }
+
+    private void despachar(ReservacionEvento evento) {
+        publicados.incrementAndGet();
+        suscriptores.orderedStream()
+            .filter(SuscriptorEventosReservacion::sincrono)
+            .forEach(suscriptor -> entregar(suscriptor, evento));
+        executor.execute(() -> suscriptores.orderedStream()
+            .filter(suscriptor -> !suscriptor.sincrono())
+            .forEach(suscriptor -> entregar(suscriptor, evento)));
+    }
+
+    private void entregar(SuscriptorEventosReservacion suscriptor, ReservacionEvento evento) {
+        try {
+            suscriptor.alPublicarse(evento);
+        } catch (RuntimeException e) {
+            // Un suscriptor que falla no debe impedir que los demás reciban el evento
+            fallidos.incrementAndGet();
+            log.error("Error entregando {} a {}", evento, suscriptor.getClass().getSimpleName(), e);
+        }
+    }
+
+    public long getPublicados() {
+        return publicados.get();
+    }
+
+    public long getFallidos() {
+        return fallidos.get();
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdown();
+    }
+}
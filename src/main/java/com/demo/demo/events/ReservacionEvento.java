@@ -0,0 +1,40 @@
+package com.example.apartamentos.events;
+
+import java.time.LocalDate;
+
+import com.example.apartamentos.models.ReservacionModel.EstadoReservacion;
+
+// Eventos de dominio de una reservación. Se publican después del commit, así que quien los
+// recibe puede dar por hecho que el cambio ya está en la base de datos.
+public sealed interface ReservacionEvento {
+
+    Long idReservacion();
+
+    Long idPropiedad();
+
+    Long idCliente();
+
+    record ReservationCreated(Long idReservacion, Long idPropiedad, Long idCliente,
+            LocalDate fechaEntrada, LocalDate fechaSalida, double precioTotal,
+            EstadoReservacion estado) implements ReservacionEvento {
+    }
+
+    record DatesChanged(Long idReservacion, Long idPropiedad, Long idCliente,
+            LocalDate fechaEntradaAnterior, LocalDate fechaSalidaAnterior, double precioTotalAnterior,
+            LocalDate fechaEntrada, LocalDate fechaSalida, double precioTotal) implements ReservacionEvento {
+    }
+
+    record Cancelled(Long idReservacion, Long idPropiedad, Long idCliente,
+            LocalDate fechaEntrada, LocalDate fechaSalida, double precioTotal) implements ReservacionEvento {
+    }
+
+    record Confirmed(Long idReservacion, Long idPropiedad, Long idCliente) implements ReservacionEvento {
+    }
+
+    record CheckedIn(Long idReservacion, Long idPropiedad, Long idCliente) implements ReservacionEvento {
+    }
+
+    record Finalized(Long idReservacion, Long idPropiedad, Long idCliente,
+            LocalDate fechaEntrada, LocalDate fechaSalida) implements ReservacionEvento {
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.apartamentos.events;
+
+// Cualquier bean que implemente esta interfaz recibe los eventos de reservación.
+// Se invoca desde el hilo del despachador, en el mismo orden en que se publicaron.
+public interface SuscriptorEventosReservacion {
+
+    void alPublicarse(ReservacionEvento evento);
+
+    // true: recibe el evento en el hilo que confirmó la transacción, antes de que éste continúe,
+    // de modo que quien hizo el cambio ya lo ve aplicado. Solo para suscriptores en memoria y baratos
+    default boolean sincrono() {
+        return false;
+    }
+}
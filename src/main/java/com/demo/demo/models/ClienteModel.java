@@ -3,6 +3,8 @@ package com.example.apartamentos.models;
 import java.time.LocalDateTime;
 import java.util.Date;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -65,7 +67,9 @@ public class ClienteModel {
     @Column(name = "estatus", nullable = false)
     private ClienteStatus estatus;
 
+    // Se recibe al crear o actualizar, pero nunca se serializa en las respuestas
     @NotBlank(message = "La contraseña es obligatoria")
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     @Column(name = "password", nullable = false, length = 100)
     private String password;
 
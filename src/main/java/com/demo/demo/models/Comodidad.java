@@ -0,0 +1,85 @@
+package com.example.apartamentos.models;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import com.example.apartamentos.util.TextoEspanol;
+
+// Vocabulario fijo de comodidades. El texto libre de PropiedadModel.comodidades se traduce a una
+// máscara de bits (bit = ordinal) que se guarda en comodidades_mask: "wifi y alberca" -> WIFI | ALBERCA.
+// Solo se pueden agregar constantes al final; reordenarlas cambiaría el significado de las máscaras guardadas.
+public enum Comodidad {
+    WIFI("wifi", "internet"),
+    ESTACIONAMIENTO("estacionamiento", "parking", "cochera", "garage"),
+    ALBERCA("alberca", "piscina"),
+    AIRE_ACONDICIONADO("aire acondicionado", "clima", "minisplit"),
+    CALEFACCION("calefaccion", "calentador"),
+    COCINA("cocina", "cocineta"),
+    LAVADORA("lavadora", "lavanderia"),
+    TELEVISION("television", "tv", "pantalla", "cable"),
+    MASCOTAS("mascotas", "pet friendly"),
+    GIMNASIO("gimnasio", "gym"),
+    JARDIN("jardin", "patio"),
+    TERRAZA("terraza", "balcon", "roof"),
+    ELEVADOR("elevador", "ascensor"),
+    SEGURIDAD("seguridad", "vigilancia", "caseta"),
+    JACUZZI("jacuzzi", "tina de hidromasaje"),
+    ASADOR("asador", "parrilla");
+
+    // Cada sinónimo ya tokenizado igual que el texto que se analiza
+    private final List<List<String>> sinonimos;
+
+    Comodidad(String... sinonimos) {
+        this.sinonimos = Arrays.stream(sinonimos).map(TextoEspanol::terminos).toList();
+    }
+
+    public long bit() {
+        return 1L << ordinal();
+    }
+
+    // Máscara de las comodidades mencionadas en el texto libre
+    public static long mascara(String texto) {
+        List<String> terminos = TextoEspanol.terminos(texto);
+        long mascara = 0;
+        for (Comodidad comodidad : values()) {
+            for (List<String> sinonimo : comodidad.sinonimos) {
+                if (!sinonimo.isEmpty() && contiene(terminos, sinonimo)) {
+                    mascara |= comodidad.bit();
+                    break;
+                }
+            }
+        }
+        return mascara;
+    }
+
+    public static long mascara(Collection<Comodidad> comodidades) {
+        long mascara = 0;
+        for (Comodidad comodidad : comodidades) {
+            mascara |= comodidad.bit();
+        }
+        return mascara;
+    }
+
+    public static Set<Comodidad> de(long mascara) {
+        Set<Comodidad> comodidades = EnumSet.noneOf(Comodidad.class);
+        for (Comodidad comodidad : values()) {
+            if ((mascara & comodidad.bit()) != 0) {
+                comodidades.add(comodidad);
+            }
+        }
+        return comodidades;
+    }
+
+    // true si la secuencia de términos aparece seguida dentro del texto
+    private static boolean contiene(List<String> terminos, List<String> secuencia) {
+        for (int i = 0; i + secuencia.size() <= terminos.size(); i++) {
+            if (terminos.subList(i, i + secuencia.size()).equals(secuencia)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -5,8 +5,18 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import java.time.LocalDateTime;
 
+import com.example.apartamentos.util.Extracto;
+
 @Entity
-@Table(name = "mensajes")
+@Table(name = "mensajes", indexes = {
+    // Bandeja de entrada de un cliente, de la más reciente a la más antigua
+    @Index(name = "idx_mensaje_destinatario_fecha", columnList = "id_destinatario, fecha_envio, id_mensaje"),
+    // Conversación entre dos clientes, sin importar quién envió cada mensaje
+    @Index(name = "idx_mensaje_participantes_fecha",
+        columnList = "participante_menor, participante_mayor, fecha_envio, id_mensaje"),
+    // Conversación de una reservación
+    @Index(name = "idx_mensaje_reservacion_fecha", columnList = "id_reservacion, fecha_envio, id_mensaje")
+})
 public class MensajeModel {
 
     @Id
@@ -31,6 +41,14 @@ public class MensajeModel {
     @JoinColumn(name = "id_reservacion", nullable = true)
     private ReservacionModel reservacion;
 
+    // Remitente y destinatario ordenados por id: los mensajes de A a B y de B a A comparten la
+    // misma pareja, así una conversación se lee con un solo rango del índice
+    @Column(name = "participante_menor")
+    private Long participanteMenor;
+
+    @Column(name = "participante_mayor")
+    private Long participanteMayor;
+
     @NotBlank(message = "El asunto es obligatorio")
     @Column(length = 200)
     private String asunto;
@@ -39,9 +57,13 @@ public class MensajeModel {
     @Lob
     private String contenido;
 
+    // Lo que muestran los listados, para no leer el contenido (LOB)
+    @Column(name = "extracto", length = Extracto.LONGITUD)
+    private String extracto;
+
     private Boolean leido;
 
-    @Column(name = "fecha_envio")
+    @Column(name = "fecha_envio", updatable = false)
     private LocalDateTime fechaEnvio;
 
     public Integer getIdMensaje() { return idMensaje; }
@@ -62,6 +84,8 @@ public class MensajeModel {
     public String getContenido() { return contenido; }
     public void setContenido(String contenido) { this.contenido = contenido; }
 
+    public String getExtracto() { return extracto; }
+
     public Boolean getLeido() { return leido; }
     public void setLeido(Boolean leido) { this.leido = leido; }
 
@@ -69,8 +93,18 @@ public class MensajeModel {
     public void setFechaEnvio(LocalDateTime fechaEnvio) { this.fechaEnvio = fechaEnvio; }
 
     @PrePersist
+    @PreUpdate
     public void prePersist() {
         if (fechaEnvio == null) fechaEnvio = LocalDateTime.now();
         if (leido == null) leido = false;
+        calcularExtracto();
+        Long idRemitente = remitente.getId();
+        Long idDestinatario = destinatario.getId();
+        participanteMenor = Math.min(idRemitente, idDestinatario);
+        participanteMayor = Math.max(idRemitente, idDestinatario);
+    }
+
+    public void calcularExtracto() {
+        extracto = Extracto.de(contenido);
     }
 }
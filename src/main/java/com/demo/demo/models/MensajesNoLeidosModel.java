@@ -0,0 +1,23 @@
+package com.example.apartamentos.models;
+
+import jakarta.persistence.*;
+
+// Mensajes sin leer de cada cliente, mantenido al enviar, leer y borrar mensajes para que el
+// contador de la bandeja sea una lectura por llave primaria y no un COUNT sobre mensajes
+@Entity
+@Table(name = "mensajes_no_leidos")
+public class MensajesNoLeidosModel {
+
+    @Id
+    @Column(name = "id_cliente")
+    private Long idCliente;
+
+    @Column(name = "no_leidos", nullable = false)
+    private Integer noLeidos;
+
+    public Long getIdCliente() { return idCliente; }
+    public void setIdCliente(Long idCliente) { this.idCliente = idCliente; }
+
+    public Integer getNoLeidos() { return noLeidos; }
+    public void setNoLeidos(Integer noLeidos) { this.noLeidos = noLeidos; }
+}
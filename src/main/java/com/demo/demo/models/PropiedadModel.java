@@ -2,6 +2,8 @@ package com.example.apartamentos.models;
 
 import java.time.LocalDateTime;
 
+import com.example.apartamentos.util.Geohash;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import jakarta.persistence.Column;
@@ -12,6 +14,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
@@ -23,7 +26,18 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 
 @Entity
-@Table(name = "propiedades")
+@Table(name = "propiedades", indexes = {
+    @Index(name = "idx_propiedad_geohash", columnList = "geohash"),
+    // Búsqueda con facetas: filtro por ciudad ordenado por precio, orden por precio sin filtro
+    // y conteo por ciudad dentro de un país (ver BusquedaPropiedades)
+    @Index(name = "idx_propiedad_ciudad_precio", columnList = "ciudad, precio_noche, id_propiedad"),
+    @Index(name = "idx_propiedad_precio", columnList = "precio_noche, id_propiedad"),
+    @Index(name = "idx_propiedad_pais_ciudad", columnList = "pais, ciudad"),
+    // Orden por calificación en la búsqueda
+    @Index(name = "idx_propiedad_calificacion", columnList = "calificacion_promedio, id_propiedad"),
+    // Propiedades cambiadas recientemente (ver IndiceComodidades.refrescar)
+    @Index(name = "idx_propiedad_actualizacion", columnList = "fecha_actualizacion")
+})
 public class PropiedadModel {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -76,6 +90,10 @@ public class PropiedadModel {
     @Column(name = "longitud", nullable = false)
     private double longitud;
 
+    // Celda geohash de (latitud, longitud) para las búsquedas por cercanía; se recalcula al guardar
+    @Column(name = "geohash", length = Geohash.PRECISION_MAXIMA)
+    private String geohash;
+
     @NotNull(message = "El precio por noche es obligatorio")
     @Positive(message = "El precio por noche debe ser positivo")
     @Column(name = "precio_noche", nullable = false)
@@ -101,6 +119,10 @@ public class PropiedadModel {
 
     @Column(name = "comodidades", length = 300)
     private String comodidades;
+
+    // Comodidades del texto libre traducidas al vocabulario de Comodidad, un bit por comodidad
+    @Column(name = "comodidades_mask")
+    private Long comodidadesMask;
     
     @Column(name = "reglas", length = 300)
     private String reglas;
@@ -115,6 +137,37 @@ public class PropiedadModel {
     @Column(name = "fecha_actualizacion", nullable = false)
     private LocalDateTime fecha_actualizacion;
 
+    // Agregados de las reseñas: conteo y suma por aspecto (los aspectos distintos del general son
+    // opcionales y llevan su propio conteo). Solo los cambian las sumas incrementales de
+    // IPropiedadRepository al guardar o borrar reseñas; null en resenas_total = aún sin calcular
+    @Column(name = "resenas_total", updatable = false)
+    private Integer resenasTotal;
+
+    @Column(name = "suma_general", updatable = false)
+    private Long sumaGeneral;
+
+    @Column(name = "resenas_limpieza", updatable = false)
+    private Integer resenasLimpieza;
+
+    @Column(name = "suma_limpieza", updatable = false)
+    private Long sumaLimpieza;
+
+    @Column(name = "resenas_ubicacion", updatable = false)
+    private Integer resenasUbicacion;
+
+    @Column(name = "suma_ubicacion", updatable = false)
+    private Long sumaUbicacion;
+
+    @Column(name = "resenas_comunicacion", updatable = false)
+    private Integer resenasComunicacion;
+
+    @Column(name = "suma_comunicacion", updatable = false)
+    private Long sumaComunicacion;
+
+    // suma_general / resenas_total (0 sin reseñas), guardado para ordenar sin calcular
+    @Column(name = "calificacion_promedio", updatable = false)
+    private Double calificacionPromedio;
+
     // Callback JPA: antes de insertar
     @PrePersist
     public void onPrePersist() {
@@ -122,15 +175,38 @@ public class PropiedadModel {
             this.fecha_registro = LocalDateTime.now();
         }
         this.fecha_actualizacion = LocalDateTime.now();
+        recalcularCamposDerivados();
+        // Una propiedad nueva no tiene reseñas
+        this.resenasTotal = 0;
+        this.sumaGeneral = 0L;
+        this.resenasLimpieza = 0;
+        this.sumaLimpieza = 0L;
+        this.resenasUbicacion = 0;
+        this.sumaUbicacion = 0L;
+        this.resenasComunicacion = 0;
+        this.sumaComunicacion = 0L;
+        this.calificacionPromedio = 0.0;
     }
 
     // Callback JPA: antes de actualizar
     @PreUpdate
     public void onPreUpdate() {
         this.fecha_actualizacion = LocalDateTime.now();
+        recalcularCamposDerivados();
+    }
+
+    // Columnas que se derivan de otras y no se reciben del cliente
+    private void recalcularCamposDerivados() {
+        this.geohash = Geohash.codificar(latitud, longitud, Geohash.PRECISION_MAXIMA);
+        this.comodidadesMask = Comodidad.mascara(comodidades);
+    }
+
+    // Promedios por aspecto para mostrar; null donde no hay reseñas que promediar
+    public record Calificaciones(int resenas, Double general, Double limpieza, Double ubicacion,
+                                 Double comunicacion) {
     }
 
-    enum EstadoHab {
+    public enum EstadoHab {
         DISPONIBLE,
         NO_DISPONIBLE,
         MANTENIMIENTO
@@ -304,6 +380,10 @@ public class PropiedadModel {
         this.longitud = longitud;
     }
 
+    public String getGeohash() {
+        return geohash;
+    }
+
     public double getPrecio_noche() {
         return precio_noche;
     }
@@ -352,6 +432,36 @@ public class PropiedadModel {
         this.comodidades = comodidades;
     }
 
+    public Long getComodidadesMask() {
+        return comodidadesMask;
+    }
+
+    public Calificaciones getCalificaciones() {
+        return calificaciones(resenasTotal, sumaGeneral, resenasLimpieza, sumaLimpieza,
+            resenasUbicacion, sumaUbicacion, resenasComunicacion, sumaComunicacion);
+    }
+
+    // Promedios a partir de los agregados guardados; null si aún no se han calculado
+    public static Calificaciones calificaciones(Integer resenasTotal, Long sumaGeneral, Integer resenasLimpieza,
+            Long sumaLimpieza, Integer resenasUbicacion, Long sumaUbicacion, Integer resenasComunicacion,
+            Long sumaComunicacion) {
+        if (resenasTotal == null) {
+            return null;
+        }
+        return new Calificaciones(resenasTotal, promedio(sumaGeneral, resenasTotal),
+            promedio(sumaLimpieza, resenasLimpieza), promedio(sumaUbicacion, resenasUbicacion),
+            promedio(sumaComunicacion, resenasComunicacion));
+    }
+
+    @JsonIgnore
+    public Double getCalificacionPromedio() {
+        return calificacionPromedio;
+    }
+
+    private static Double promedio(Long suma, Integer conteo) {
+        return conteo == null || conteo == 0 ? null : (double) suma / conteo;
+    }
+
     public String getReglas() {
         return reglas;
     }
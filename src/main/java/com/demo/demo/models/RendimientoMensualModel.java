@@ -0,0 +1,91 @@
+package com.example.apartamentos.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+// Acumulados de una propiedad en un mes: noches reservadas, ingreso bruto (precioTotal repartido
+// entre las noches de la estancia), llegadas, cancelaciones y pagos completados. Los mantiene
+// RendimientoMensual; los reportes leen una fila por mes en lugar de recorrer reservaciones y pagos.
+@Entity
+@Table(name = "rendimiento_mensual", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_rendimiento_propiedad_mes", columnNames = {"id_propiedad", "mes"})
+})
+public class RendimientoMensualModel {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_rendimiento")
+    private Long idRendimiento;
+
+    @Column(name = "id_propiedad", nullable = false)
+    private Long idPropiedad;
+
+    // Año y mes como aaaamm (202610), para consultar rangos de meses sobre el índice único
+    @Column(name = "mes", nullable = false)
+    private Integer mes;
+
+    @Column(name = "noches", nullable = false)
+    private Integer noches;
+
+    @Column(name = "ingreso_bruto", nullable = false)
+    private Double ingresoBruto;
+
+    @Column(name = "llegadas", nullable = false)
+    private Integer llegadas;
+
+    @Column(name = "cancelaciones", nullable = false)
+    private Integer cancelaciones;
+
+    @Column(name = "pagos_completados", nullable = false)
+    private Double pagosCompletados;
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+
+    public RendimientoMensualModel() {}
+
+    public RendimientoMensualModel(Long idPropiedad, YearMonth mes) {
+        this.idPropiedad = idPropiedad;
+        this.mes = clave(mes);
+    }
+
+    public static int clave(YearMonth mes) {
+        return mes.getYear() * 100 + mes.getMonthValue();
+    }
+
+    // Asigna los valores recalculados; solo marca la fila como modificada si algo cambió
+    public boolean actualizar(int noches, double ingresoBruto, int llegadas, int cancelaciones, double pagosCompletados) {
+        if (Integer.valueOf(noches).equals(this.noches) && Double.valueOf(ingresoBruto).equals(this.ingresoBruto)
+                && Integer.valueOf(llegadas).equals(this.llegadas)
+                && Integer.valueOf(cancelaciones).equals(this.cancelaciones)
+                && Double.valueOf(pagosCompletados).equals(this.pagosCompletados)) {
+            return false;
+        }
+        this.noches = noches;
+        this.ingresoBruto = ingresoBruto;
+        this.llegadas = llegadas;
+        this.cancelaciones = cancelaciones;
+        this.pagosCompletados = pagosCompletados;
+        this.fechaActualizacion = LocalDateTime.now();
+        return true;
+    }
+
+    public Long getIdRendimiento() { return idRendimiento; }
+
+    public Long getIdPropiedad() { return idPropiedad; }
+
+    public YearMonth getMes() { return YearMonth.of(mes / 100, mes % 100); }
+
+    public Integer getNoches() { return noches; }
+
+    public Double getIngresoBruto() { return ingresoBruto; }
+
+    public Integer getLlegadas() { return llegadas; }
+
+    public Integer getCancelaciones() { return cancelaciones; }
+
+    public Double getPagosCompletados() { return pagosCompletados; }
+
+    public LocalDateTime getFechaActualizacion() { return fechaActualizacion; }
+}
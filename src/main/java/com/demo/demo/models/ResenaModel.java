@@ -6,8 +6,13 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import java.time.LocalDateTime;
 
+import com.example.apartamentos.util.Extracto;
+
 @Entity
-@Table(name = "resenas")
+@Table(name = "resenas", indexes = {
+    // Reseñas de una propiedad de la más reciente a la más antigua (feed con paginación por llave)
+    @Index(name = "idx_resena_propiedad_fecha", columnList = "id_propiedad, fecha_resena, id_resena")
+})
 public class ResenaModel {
 
     @Id
@@ -20,6 +25,11 @@ public class ResenaModel {
     @JoinColumn(name = "id_reservacion", nullable = false)
     private ReservacionModel reservacion;
 
+    // Copia de reservacion.propiedad para filtrar y ordenar por índice sin pasar por reservaciones.
+    // La asigna ResenaService al guardar
+    @Column(name = "id_propiedad")
+    private Long idPropiedad;
+
     @Min(value = 1, message = "La calificación de limpieza debe ser entre 1 y 5")
     @Max(value = 5, message = "La calificación de limpieza debe ser entre 1 y 5")
     @Column(name = "calificacion_limpieza")
@@ -44,7 +54,7 @@ public class ResenaModel {
     @Lob
     private String comentario;
 
-    @Column(name = "fecha_resena")
+    @Column(name = "fecha_resena", updatable = false)
     private LocalDateTime fechaResena;
 
     @Lob
@@ -54,12 +64,22 @@ public class ResenaModel {
     @Column(name = "fecha_respuesta")
     private LocalDateTime fechaRespuesta;
 
+    // Lo que muestran los listados, para no leer comentario ni respuesta_propietario (LOB)
+    @Column(name = "extracto_comentario", length = Extracto.LONGITUD)
+    private String extractoComentario;
+
+    @Column(name = "extracto_respuesta", length = Extracto.LONGITUD)
+    private String extractoRespuesta;
+
     public Integer getIdResena() { return idResena; }
     public void setIdResena(Integer idResena) { this.idResena = idResena; }
 
     public ReservacionModel getReservacion() { return reservacion; }
     public void setReservacion(ReservacionModel reservacion) { this.reservacion = reservacion; }
 
+    public Long getIdPropiedad() { return idPropiedad; }
+    public void setIdPropiedad(Long idPropiedad) { this.idPropiedad = idPropiedad; }
+
     public Integer getCalificacionLimpieza() { return calificacionLimpieza; }
     public void setCalificacionLimpieza(Integer calificacionLimpieza) { this.calificacionLimpieza = calificacionLimpieza; }
 
@@ -84,8 +104,19 @@ public class ResenaModel {
     public LocalDateTime getFechaRespuesta() { return fechaRespuesta; }
     public void setFechaRespuesta(LocalDateTime fechaRespuesta) { this.fechaRespuesta = fechaRespuesta; }
 
+    public String getExtractoComentario() { return extractoComentario; }
+
+    public String getExtractoRespuesta() { return extractoRespuesta; }
+
     @PrePersist
+    @PreUpdate
     public void prePersist() {
         if (fechaResena == null) fechaResena = LocalDateTime.now();
+        calcularExtractos();
+    }
+
+    public void calcularExtractos() {
+        extractoComentario = Extracto.de(comentario);
+        extractoRespuesta = Extracto.de(respuestaPropietario);
     }
 }
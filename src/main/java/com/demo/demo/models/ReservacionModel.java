@@ -8,7 +8,13 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reservaciones")
+@Table(name = "reservaciones", indexes = {
+    // Cubre la sonda de solapamiento: igualdad en propiedad y estado, rango en fechas
+    @Index(name = "idx_reservacion_disponibilidad",
+           columnList = "id_propiedad, estado, fecha_entrada, fecha_salida"),
+    // Barrido de pendientes vencidas
+    @Index(name = "idx_reservacion_estado_fecha", columnList = "estado, fecha_reservacion")
+})
 public class ReservacionModel {
 
     @Id
@@ -1,10 +1,20 @@
 package com.example.apartamentos.repositories;
 
+import java.util.List;
+
+import com.example.apartamentos.dto.ClienteResumen;
 import com.example.apartamentos.models.ClienteModel;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface IClienteRepository extends JpaRepository<ClienteModel, Long> {
-    //aqui no lleva codigo
+
+    // Listado por cursor con solo los datos de contacto: nunca lee password ni INE
+    @Query("SELECT new com.example.apartamentos.dto.ClienteResumen(c.id, c.nombres, c.apellidos, c.email, " +
+           "c.telefono, c.fechaRegistro) FROM ClienteModel c WHERE c.id > :cursor ORDER BY c.id")
+    List<ClienteResumen> findResumenPageAfter(@Param("cursor") Long cursor, Pageable pagina);
 }
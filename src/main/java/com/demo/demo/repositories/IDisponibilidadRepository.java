@@ -1,10 +1,39 @@
 package com.example.apartamentos.repositories;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import com.example.apartamentos.dto.DisponibilidadResumen;
+import com.example.apartamentos.dto.PrecioEspecial;
 import com.example.apartamentos.models.DisponibilidadModel;
 
 @Repository
 public interface IDisponibilidadRepository extends JpaRepository<DisponibilidadModel, Long> {
 
+    // Precios especiales de una propiedad dentro de un rango de fechas (ambos inclusivos)
+    @Query("SELECT new com.example.apartamentos.dto.PrecioEspecial(d.fecha, d.precioEspecial) " +
+           "FROM DisponibilidadModel d WHERE d.propiedad.id_propiedad = :idPropiedad " +
+           "AND d.precioEspecial IS NOT NULL AND d.fecha BETWEEN :desde AND :hasta")
+    List<PrecioEspecial> findSpecialPricesBetween(
+        @Param("idPropiedad") Long idPropiedad,
+        @Param("desde") LocalDate desde,
+        @Param("hasta") LocalDate hasta
+    );
+
+    // Propiedad de un día de disponibilidad, sin cargar la entidad
+    @Query("SELECT d.propiedad.id_propiedad FROM DisponibilidadModel d WHERE d.idDisponibilidad = :idDisponibilidad")
+    Optional<Long> findIdPropiedad(@Param("idDisponibilidad") Long idDisponibilidad);
+
+    // Listado con el id de la propiedad (la llave foránea), sin cargar la propiedad
+    @Query("SELECT new com.example.apartamentos.dto.DisponibilidadResumen(d.idDisponibilidad, " +
+           "d.propiedad.id_propiedad, d.fecha, d.disponible, d.precioEspecial) " +
+           "FROM DisponibilidadModel d WHERE d.idDisponibilidad > :cursor ORDER BY d.idDisponibilidad")
+    List<DisponibilidadResumen> findPageAfter(@Param("cursor") Long cursor, Pageable pagina);
 }
@@ -1,7 +1,132 @@
 package com.example.apartamentos.repositories;
 
+import com.example.apartamentos.dto.EstadoMensaje;
+import com.example.apartamentos.dto.MensajeConversacion;
+import com.example.apartamentos.dto.MensajeResumen;
 import com.example.apartamentos.models.MensajeModel;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 public interface IMensajeRepository extends JpaRepository<MensajeModel, Integer> {
+
+    // Los listados leen el extracto y nunca la columna LOB contenido
+
+    // Bandeja de entrada: rango de idx_mensaje_destinatario_fecha; el remitente se une por llave primaria
+    String SELECT_BANDEJA = "SELECT new com.example.apartamentos.dto.MensajeResumen(m.idMensaje, r.id, " +
+           "CONCAT(r.nombres, ' ', r.apellidos), m.reservacion.id, m.asunto, m.extracto, m.leido, m.fechaEnvio) " +
+           "FROM MensajeModel m JOIN m.remitente r WHERE m.destinatario.id = :idCliente ";
+
+    String SELECT_CONVERSACION = "SELECT new com.example.apartamentos.dto.MensajeConversacion(m.idMensaje, " +
+           "m.remitente.id, m.destinatario.id, m.reservacion.id, m.asunto, m.extracto, m.leido, m.fechaEnvio) " +
+           "FROM MensajeModel m ";
+
+    // Continúa después de la última fila entregada (fecha, id), del más reciente al más antiguo
+    String ANTES_DE = "AND (m.fechaEnvio < :fecha OR (m.fechaEnvio = :fecha AND m.idMensaje < :idMensaje)) ";
+
+    String RECIENTES_PRIMERO = "ORDER BY m.fechaEnvio DESC, m.idMensaje DESC";
+
+    @Query(SELECT_CONVERSACION + "WHERE m.idMensaje > :cursor ORDER BY m.idMensaje")
+    List<MensajeConversacion> findPageAfter(@Param("cursor") Integer cursor, Pageable pagina);
+
+    @Query(SELECT_BANDEJA + RECIENTES_PRIMERO)
+    List<MensajeResumen> findBandeja(@Param("idCliente") Long idCliente, Pageable pagina);
+
+    @Query(SELECT_BANDEJA + ANTES_DE + RECIENTES_PRIMERO)
+    List<MensajeResumen> findBandejaAntesDe(
+        @Param("idCliente") Long idCliente,
+        @Param("fecha") LocalDateTime fecha,
+        @Param("idMensaje") Integer idMensaje,
+        Pageable pagina
+    );
+
+    @Query(SELECT_CONVERSACION + "WHERE m.participanteMenor = :menor AND m.participanteMayor = :mayor " +
+           RECIENTES_PRIMERO)
+    List<MensajeConversacion> findConversacion(@Param("menor") Long menor, @Param("mayor") Long mayor,
+                                               Pageable pagina);
+
+    @Query(SELECT_CONVERSACION + "WHERE m.participanteMenor = :menor AND m.participanteMayor = :mayor " +
+           ANTES_DE + RECIENTES_PRIMERO)
+    List<MensajeConversacion> findConversacionAntesDe(
+        @Param("menor") Long menor,
+        @Param("mayor") Long mayor,
+        @Param("fecha") LocalDateTime fecha,
+        @Param("idMensaje") Integer idMensaje,
+        Pageable pagina
+    );
+
+    @Query(SELECT_CONVERSACION + "WHERE m.reservacion.id = :idReservacion " + RECIENTES_PRIMERO)
+    List<MensajeConversacion> findPorReservacion(@Param("idReservacion") Long idReservacion, Pageable pagina);
+
+    @Query(SELECT_CONVERSACION + "WHERE m.reservacion.id = :idReservacion " + ANTES_DE + RECIENTES_PRIMERO)
+    List<MensajeConversacion> findPorReservacionAntesDe(
+        @Param("idReservacion") Long idReservacion,
+        @Param("fecha") LocalDateTime fecha,
+        @Param("idMensaje") Integer idMensaje,
+        Pageable pagina
+    );
+
+    @Query("SELECT new com.example.apartamentos.dto.EstadoMensaje(m.destinatario.id, m.leido) " +
+           "FROM MensajeModel m WHERE m.idMensaje = :idMensaje")
+    Optional<EstadoMensaje> findEstado(@Param("idMensaje") Integer idMensaje);
+
+    // Solo cambia si no estaba leído: de dos lecturas simultáneas, una sola descuenta del contador
+    @Modifying
+    @Query("UPDATE MensajeModel m SET m.leido = true WHERE m.idMensaje = :idMensaje AND m.leido = false")
+    int marcarLeido(@Param("idMensaje") Integer idMensaje);
+
+    // Borra el mensaje solo si sigue sin leer: si una lectura simultánea ya lo descontó, devuelve 0
+    // y el borrado no vuelve a descontarlo
+    @Modifying
+    @Query("DELETE FROM MensajeModel m WHERE m.idMensaje = :idMensaje AND (m.leido = false OR m.leido IS NULL)")
+    int deleteNoLeido(@Param("idMensaje") Integer idMensaje);
+
+    // Inverso de marcarLeido, para ediciones que vuelven a dejar el mensaje sin leer
+    @Modifying
+    @Query("UPDATE MensajeModel m SET m.leido = false WHERE m.idMensaje = :idMensaje AND m.leido = true")
+    int marcarNoLeido(@Param("idMensaje") Integer idMensaje);
+
+    // Marcado en bloque: una sola sentencia para todos los mensajes recibidos por el lector en la
+    // conversación hasta el id dado; devuelve cuántos cambiaron, que es lo que se descuenta del contador
+    @Modifying
+    @Query("UPDATE MensajeModel m SET m.leido = true WHERE m.participanteMenor = :menor " +
+           "AND m.participanteMayor = :mayor AND m.destinatario.id = :lector AND m.leido = false " +
+           "AND m.idMensaje <= :hasta")
+    int marcarConversacionLeida(
+        @Param("menor") Long menor,
+        @Param("mayor") Long mayor,
+        @Param("lector") Long lector,
+        @Param("hasta") Integer hasta
+    );
+
+    @Modifying
+    @Query("UPDATE MensajeModel m SET m.leido = true WHERE m.reservacion.id = :idReservacion " +
+           "AND m.destinatario.id = :lector AND m.leido = false AND m.idMensaje <= :hasta")
+    int marcarReservacionLeida(
+        @Param("idReservacion") Long idReservacion,
+        @Param("lector") Long lector,
+        @Param("hasta") Integer hasta
+    );
+
+    // Mensajes guardados antes de existir la columna extracto
+    @Query("SELECT m.idMensaje FROM MensajeModel m WHERE m.extracto IS NULL AND m.contenido IS NOT NULL " +
+           "ORDER BY m.idMensaje")
+    List<Integer> findIdsSinExtracto(Pageable lote);
+
+    // Mensajes guardados antes de existir las columnas participante_menor/participante_mayor
+    @Query("SELECT m.idMensaje FROM MensajeModel m WHERE m.participanteMenor IS NULL ORDER BY m.idMensaje")
+    List<Integer> findIdsSinParticipantes(Pageable lote);
+
+    @Modifying
+    @Query("UPDATE MensajeModel m SET " +
+           "m.participanteMenor = CASE WHEN m.remitente.id < m.destinatario.id THEN m.remitente.id ELSE m.destinatario.id END, " +
+           "m.participanteMayor = CASE WHEN m.remitente.id < m.destinatario.id THEN m.destinatario.id ELSE m.remitente.id END " +
+           "WHERE m.idMensaje IN :ids")
+    int rellenarParticipantes(@Param("ids") List<Integer> ids);
 }
@@ -0,0 +1,44 @@
+package com.example.apartamentos.repositories;
+
+import com.example.apartamentos.models.MensajesNoLeidosModel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface IMensajesNoLeidosRepository extends JpaRepository<MensajesNoLeidosModel, Long> {
+
+    @Query("SELECT n.noLeidos FROM MensajesNoLeidosModel n WHERE n.idCliente = :idCliente")
+    Optional<Integer> findNoLeidos(@Param("idCliente") Long idCliente);
+
+    // Suma (o resta, con delta negativo) sin bajar de cero; no hace nada si el cliente aún no tiene contador
+    @Modifying
+    @Query("UPDATE MensajesNoLeidosModel n SET n.noLeidos = " +
+           "CASE WHEN n.noLeidos + :delta < 0 THEN 0 ELSE n.noLeidos + :delta END " +
+           "WHERE n.idCliente = :idCliente")
+    int sumar(@Param("idCliente") Long idCliente, @Param("delta") int delta);
+
+    @Modifying
+    @Query("INSERT INTO MensajesNoLeidosModel (idCliente, noLeidos) VALUES (:idCliente, 0)")
+    int crear(@Param("idCliente") Long idCliente);
+
+    @Modifying
+    @Query("DELETE FROM MensajesNoLeidosModel n WHERE n.idCliente = :idCliente")
+    int eliminar(@Param("idCliente") Long idCliente);
+
+    // Clientes registrados antes de existir la tabla
+    @Query("SELECT c.id FROM ClienteModel c WHERE NOT EXISTS " +
+           "(SELECT 1 FROM MensajesNoLeidosModel n WHERE n.idCliente = c.id) ORDER BY c.id")
+    List<Long> findIdsSinContador(Pageable lote);
+
+    @Modifying
+    @Query("INSERT INTO MensajesNoLeidosModel (idCliente, noLeidos) " +
+           "SELECT c.id, CAST((SELECT COUNT(m) FROM MensajeModel m " +
+           "WHERE m.destinatario.id = c.id AND m.leido = false) AS Integer) " +
+           "FROM ClienteModel c WHERE c.id IN :ids")
+    int crearContando(@Param("ids") List<Long> ids);
+}
@@ -1,11 +1,40 @@
 package com.example.apartamentos.repositories;
 
+import com.example.apartamentos.dto.MovimientoPago;
+import com.example.apartamentos.dto.PagoResumen;
+import com.example.apartamentos.dto.PagosMes;
 import com.example.apartamentos.models.PagoModel;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 public interface IPagoRepository extends JpaRepository<PagoModel, Integer> {
-  
+
+    // Listado sin hidratar la reservación ni leer datos_pago
+    @Query("SELECT new com.example.apartamentos.dto.PagoResumen(p.idPago, p.reservacion.id, p.monto, p.metodoPago, " +
+           "p.estado, p.fechaPago, p.referenciaPago, p.fechaCreacion) " +
+           "FROM PagoModel p WHERE p.idPago > :cursor ORDER BY p.idPago")
+    List<PagoResumen> findPageAfter(@Param("cursor") Long cursor, Pageable pagina);
+
+    @Query("SELECT new com.example.apartamentos.dto.MovimientoPago(p.reservacion.propiedad.id_propiedad, p.fechaPago) " +
+           "FROM PagoModel p WHERE p.idPago = :idPago")
+    Optional<MovimientoPago> findMovimiento(@Param("idPago") Long idPago);
+
+    // Pagos completados de una propiedad en [inicio, fin), sumados por mes de pago
+    @Query("SELECT new com.example.apartamentos.dto.PagosMes(YEAR(p.fechaPago), MONTH(p.fechaPago), SUM(p.monto)) " +
+           "FROM PagoModel p WHERE p.reservacion.propiedad.id_propiedad = :idPropiedad " +
+           "AND p.estado = com.example.apartamentos.models.PagoModel.EstadoPago.completado " +
+           "AND p.fechaPago >= :inicio AND p.fechaPago < :fin " +
+           "GROUP BY YEAR(p.fechaPago), MONTH(p.fechaPago)")
+    List<PagosMes> sumarCompletadosPorMes(
+        @Param("idPropiedad") Long idPropiedad,
+        @Param("inicio") LocalDateTime inicio,
+        @Param("fin") LocalDateTime fin
+    );
 }
@@ -1,10 +1,20 @@
 package com.example.apartamentos.repositories;
 
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import com.example.apartamentos.dto.ImagenResumen;
 import com.example.apartamentos.models.PropiedadimagenModel;
 
 @Repository
 public interface IPropiedadImagenRepository extends JpaRepository<PropiedadimagenModel, Long> {
 
+    // Listado con el id de la propiedad (la llave foránea): no carga la propiedad de cada imagen
+    @Query("SELECT new com.example.apartamentos.dto.ImagenResumen(i.idImagen, i.propiedad.id_propiedad, i.urlImagen) " +
+           "FROM PropiedadimagenModel i WHERE i.idImagen > :cursor ORDER BY i.idImagen")
+    List<ImagenResumen> findPageAfter(@Param("cursor") Long cursor, Pageable pagina);
 }
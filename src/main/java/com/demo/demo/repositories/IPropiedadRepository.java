@@ -1,14 +1,168 @@
 package com.example.apartamentos.repositories;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.apartamentos.dto.CamposBasePropiedad;
+import com.example.apartamentos.dto.PropiedadDetalle;
+import com.example.apartamentos.dto.PropiedadExportada;
+import com.example.apartamentos.dto.PropiedadResumen;
+import com.example.apartamentos.dto.TextoPropiedad;
 import com.example.apartamentos.models.PropiedadModel;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
 @Repository
-public interface IPropiedadRepository extends JpaRepository<PropiedadModel, Long> {
-    //aqui no lleva codigo
-     List<PropiedadModel> findByTipo(String tipo);
+public interface IPropiedadRepository extends JpaRepository<PropiedadModel, Long>,
+        JpaSpecificationExecutor<PropiedadModel> {
+
+    // Proyección de los listados: columnas de la tarjeta de la propiedad, sin textos largos
+    String SELECT_RESUMEN = "SELECT new com.example.apartamentos.dto.PropiedadResumen(" +
+           "p.id_propiedad, p.titulo, CAST(p.tipo AS String), p.ciudad, p.pais, p.precio_noche, " +
+           "p.capacidad, p.num_habitaciones, p.num_banos, p.estado, p.resenasTotal, p.calificacionPromedio) " +
+           "FROM PropiedadModel p ";
+
+    // Ficha de una propiedad: del propietario solo id y nombre
+    @Query("SELECT new com.example.apartamentos.dto.PropiedadDetalle(" +
+           "p.id_propiedad, c.id, CONCAT(c.nombres, ' ', c.apellidos), CAST(p.tipo AS String), p.titulo, " +
+           "p.descripcion, p.direccion, p.ciudad, p.estidadFederativa, p.codigo_postal, p.pais, p.latitud, " +
+           "p.longitud, p.precio_noche, p.capacidad, p.num_habitaciones, p.num_banos, p.metro_cuadrados, " +
+           "p.comodidades, p.reglas, p.estado, p.fecha_registro, p.fecha_actualizacion, " +
+           "p.resenasTotal, p.sumaGeneral, p.resenasLimpieza, p.sumaLimpieza, p.resenasUbicacion, " +
+           "p.sumaUbicacion, p.resenasComunicacion, p.sumaComunicacion) " +
+           "FROM PropiedadModel p JOIN p.propietario c WHERE p.id_propiedad = :idPropiedad")
+    Optional<PropiedadDetalle> findDetalleById(@Param("idPropiedad") Long idPropiedad);
+
+    @Query(SELECT_RESUMEN + "WHERE CAST(p.tipo AS String) = :tipo ORDER BY p.id_propiedad")
+    List<PropiedadResumen> findResumenByTipo(@Param("tipo") String tipo);
+
+    // SELECT ... FOR UPDATE sobre la propiedad: serializa las reservas de una misma propiedad
+    // entre nodos mientras dure la transacción
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM PropiedadModel p WHERE p.id_propiedad = :idPropiedad")
+    Optional<PropiedadModel> findByIdForUpdate(@Param("idPropiedad") Long idPropiedad);
+
+    // Propiedades libres en un rango de fechas: anti-join contra reservaciones en una sola consulta.
+    // Los filtros son opcionales (null = sin filtrar). Slice evita el COUNT adicional de Page.
+    // Devuelve la proyección de los listados: sin textos largos ni propietario (que se cargaría por fila)
+    @Query(SELECT_RESUMEN + "WHERE " +
+           "(:ciudad IS NULL OR p.ciudad = :ciudad) " +
+           "AND (:capacidad IS NULL OR p.capacidad >= :capacidad) " +
+           "AND (:precioMin IS NULL OR p.precio_noche >= :precioMin) " +
+           "AND (:precioMax IS NULL OR p.precio_noche <= :precioMax) " +
+           "AND NOT EXISTS (SELECT r.id FROM ReservacionModel r WHERE r.propiedad = p " +
+           "AND r.estado IN ('confirmada', 'pendiente') " +
+           "AND r.fechaEntrada <= :fechaSalida AND r.fechaSalida >= :fechaEntrada)")
+    Slice<PropiedadResumen> findAvailableBetween(
+        @Param("fechaEntrada") LocalDate fechaEntrada,
+        @Param("fechaSalida") LocalDate fechaSalida,
+        @Param("ciudad") String ciudad,
+        @Param("capacidad") Integer capacidad,
+        @Param("precioMin") Double precioMin,
+        @Param("precioMax") Double precioMax,
+        Pageable pageable
+    );
+
+    @Query(SELECT_RESUMEN + "WHERE p.id_propiedad > :cursor ORDER BY p.id_propiedad")
+    List<PropiedadResumen> findResumenPageAfter(@Param("cursor") Long cursor, Pageable pagina);
+
+    // Exportación completa: se lee fila por fila con un cursor de solo avance (en MySQL el fetch
+    // size Integer.MIN_VALUE hace que Connector/J no cargue el resultado entero). Debe consumirse
+    // dentro de una transacción y cerrarse al terminar
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT new com.example.apartamentos.dto.PropiedadExportada(" +
+           "p.id_propiedad, p.propietario.id, CAST(p.tipo AS String), p.titulo, p.descripcion, p.direccion, " +
+           "p.ciudad, p.estidadFederativa, p.codigo_postal, p.pais, p.latitud, p.longitud, p.precio_noche, " +
+           "p.capacidad, p.num_habitaciones, p.num_banos, p.metro_cuadrados, p.comodidades, p.reglas, " +
+           "p.estado, p.fecha_registro, p.fecha_actualizacion) FROM PropiedadModel p ORDER BY p.id_propiedad")
+    Stream<PropiedadExportada> streamExportacion();
+
+    // Propiedades guardadas antes de existir alguna de las columnas derivadas
+    @Query("SELECT new com.example.apartamentos.dto.CamposBasePropiedad(p.id_propiedad, p.latitud, p.longitud, p.comodidades) " +
+           "FROM PropiedadModel p WHERE p.geohash IS NULL OR p.comodidadesMask IS NULL ORDER BY p.id_propiedad")
+    List<CamposBasePropiedad> findSinCamposDerivados(Pageable lote);
+
+    // No pasa por onPreUpdate: solo escribe las columnas derivadas, sin tocar fecha_actualizacion
+    @Modifying
+    @Query("UPDATE PropiedadModel p SET p.geohash = :geohash, p.comodidadesMask = :comodidadesMask " +
+           "WHERE p.id_propiedad = :idPropiedad")
+    int updateCamposDerivados(
+        @Param("idPropiedad") Long idPropiedad,
+        @Param("geohash") String geohash,
+        @Param("comodidadesMask") Long comodidadesMask
+    );
+
+    // Suma el aporte de una o varias reseñas (negativo al quitarlas) a los agregados de la propiedad.
+    // El promedio va primero: MySQL evalúa las asignaciones en orden y con los valores ya cambiados.
+    // No toca propiedades sin agregados calculados (resenas_total null): esas se recalculan completas
+    @Modifying
+    @Query("UPDATE PropiedadModel p SET " +
+           "p.calificacionPromedio = CASE WHEN p.resenasTotal + :resenas > 0 " +
+           "THEN (p.sumaGeneral + :general) * 1.0 / (p.resenasTotal + :resenas) ELSE 0.0 END, " +
+           "p.resenasTotal = p.resenasTotal + :resenas, p.sumaGeneral = p.sumaGeneral + :general, " +
+           "p.resenasLimpieza = p.resenasLimpieza + :resenasLimpieza, p.sumaLimpieza = p.sumaLimpieza + :limpieza, " +
+           "p.resenasUbicacion = p.resenasUbicacion + :resenasUbicacion, p.sumaUbicacion = p.sumaUbicacion + :ubicacion, " +
+           "p.resenasComunicacion = p.resenasComunicacion + :resenasComunicacion, " +
+           "p.sumaComunicacion = p.sumaComunicacion + :comunicacion " +
+           "WHERE p.id_propiedad = :idPropiedad AND p.resenasTotal IS NOT NULL")
+    int sumarCalificaciones(
+        @Param("idPropiedad") Long idPropiedad,
+        @Param("resenas") int resenas,
+        @Param("general") long general,
+        @Param("resenasLimpieza") int resenasLimpieza,
+        @Param("limpieza") long limpieza,
+        @Param("resenasUbicacion") int resenasUbicacion,
+        @Param("ubicacion") long ubicacion,
+        @Param("resenasComunicacion") int resenasComunicacion,
+        @Param("comunicacion") long comunicacion
+    );
+
+    // Propiedades guardadas antes de existir los agregados de reseñas
+    @Query("SELECT p.id_propiedad FROM PropiedadModel p WHERE p.resenasTotal IS NULL ORDER BY p.id_propiedad")
+    List<Long> findIdsSinCalificaciones(Pageable lote);
+
+    // Calcula los agregados desde cero a partir de todas las reseñas de cada propiedad
+    @Modifying
+    @Query("UPDATE PropiedadModel p SET " +
+           "p.resenasTotal = (SELECT COUNT(r) FROM ResenaModel r WHERE r.reservacion.propiedad = p), " +
+           "p.sumaGeneral = (SELECT COALESCE(SUM(r.calificacionGeneral), 0) FROM ResenaModel r WHERE r.reservacion.propiedad = p), " +
+           "p.resenasLimpieza = (SELECT COUNT(r.calificacionLimpieza) FROM ResenaModel r WHERE r.reservacion.propiedad = p), " +
+           "p.sumaLimpieza = (SELECT COALESCE(SUM(r.calificacionLimpieza), 0) FROM ResenaModel r WHERE r.reservacion.propiedad = p), " +
+           "p.resenasUbicacion = (SELECT COUNT(r.calificacionUbicacion) FROM ResenaModel r WHERE r.reservacion.propiedad = p), " +
+           "p.sumaUbicacion = (SELECT COALESCE(SUM(r.calificacionUbicacion), 0) FROM ResenaModel r WHERE r.reservacion.propiedad = p), " +
+           "p.resenasComunicacion = (SELECT COUNT(r.calificacionComunicacion) FROM ResenaModel r WHERE r.reservacion.propiedad = p), " +
+           "p.sumaComunicacion = (SELECT COALESCE(SUM(r.calificacionComunicacion), 0) FROM ResenaModel r WHERE r.reservacion.propiedad = p), " +
+           "p.calificacionPromedio = (SELECT COALESCE(AVG(r.calificacionGeneral), 0.0) FROM ResenaModel r WHERE r.reservacion.propiedad = p) " +
+           "WHERE p.id_propiedad IN :ids AND p.resenasTotal IS NULL")
+    int recalcularCalificaciones(@Param("ids") List<Long> ids);
+
+    @Query("SELECT new com.example.apartamentos.dto.TextoPropiedad(p.id_propiedad, p.titulo, p.descripcion, p.comodidades) " +
+           "FROM PropiedadModel p WHERE p.id_propiedad > :cursor ORDER BY p.id_propiedad")
+    List<TextoPropiedad> findTextoPageAfter(@Param("cursor") Long cursor, Pageable lote);
+
+    // Propiedades cambiadas desde una fecha (usa idx_propiedad_actualizacion), por lotes de id
+    @Query("SELECT new com.example.apartamentos.dto.TextoPropiedad(p.id_propiedad, p.titulo, p.descripcion, p.comodidades) " +
+           "FROM PropiedadModel p WHERE p.fecha_actualizacion >= :desde AND p.id_propiedad > :cursor " +
+           "ORDER BY p.id_propiedad")
+    List<TextoPropiedad> findTextoActualizadoDesde(@Param("desde") LocalDateTime desde, @Param("cursor") Long cursor,
+        Pageable lote);
+
+    @Query("SELECT p.id_propiedad FROM PropiedadModel p WHERE p.id_propiedad > :cursor ORDER BY p.id_propiedad")
+    List<Long> findIdsPageAfter(@Param("cursor") Long cursor, Pageable lote);
 }
@@ -0,0 +1,25 @@
+package com.example.apartamentos.repositories;
+
+import com.example.apartamentos.models.RendimientoMensualModel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface IRendimientoMensualRepository extends JpaRepository<RendimientoMensualModel, Long> {
+
+    // Rango de meses (aaaamm, inclusivos) sobre uk_rendimiento_propiedad_mes
+    @Query("SELECT r FROM RendimientoMensualModel r WHERE r.idPropiedad = :idPropiedad " +
+           "AND r.mes BETWEEN :desde AND :hasta ORDER BY r.mes")
+    List<RendimientoMensualModel> findEntre(
+        @Param("idPropiedad") Long idPropiedad,
+        @Param("desde") Integer desde,
+        @Param("hasta") Integer hasta
+    );
+
+    // Para saber si la tabla ya se llenó alguna vez sin contar sus filas
+    @Query("SELECT r.idRendimiento FROM RendimientoMensualModel r")
+    List<Long> findAlguno(Pageable uno);
+}
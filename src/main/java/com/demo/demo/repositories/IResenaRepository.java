@@ -1,12 +1,76 @@
 package com.example.apartamentos.repositories;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.example.apartamentos.dto.CalificacionesResena;
+import com.example.apartamentos.dto.ResenaPublicada;
 import com.example.apartamentos.models.ResenaModel;
 
-
+import jakarta.persistence.LockModeType;
 
 public interface IResenaRepository extends JpaRepository<ResenaModel, Integer> {
 
-}
+    // Solo une reservación y cliente (por llave primaria) para las filas de la página, por el nombre
+    // del autor. Lee los extractos y nunca las columnas LOB comentario y respuesta_propietario
+    String SELECT_PUBLICADA = "SELECT new com.example.apartamentos.dto.ResenaPublicada(" +
+           "r.idResena, r.idPropiedad, c.nombres, r.calificacionGeneral, r.calificacionLimpieza, " +
+           "r.calificacionUbicacion, r.calificacionComunicacion, r.extractoComentario, r.fechaResena, " +
+           "r.extractoRespuesta, r.fechaRespuesta) " +
+           "FROM ResenaModel r JOIN r.reservacion res JOIN res.cliente c ";
+
+    // Feed de una propiedad: filtra y ordena sobre idx_resena_propiedad_fecha
+    String DE_PROPIEDAD = "WHERE r.idPropiedad = :idPropiedad ";
+
+    @Query(SELECT_PUBLICADA + DE_PROPIEDAD + "ORDER BY r.fechaResena DESC, r.idResena DESC")
+    List<ResenaPublicada> findPublicadas(@Param("idPropiedad") Long idPropiedad, Pageable pagina);
+
+    // Página siguiente: reseñas anteriores a la última entregada (fecha, id)
+    @Query(SELECT_PUBLICADA + DE_PROPIEDAD + "AND (r.fechaResena < :fecha OR (r.fechaResena = :fecha AND r.idResena < :idResena)) " +
+           "ORDER BY r.fechaResena DESC, r.idResena DESC")
+    List<ResenaPublicada> findPublicadasAntesDe(
+        @Param("idPropiedad") Long idPropiedad,
+        @Param("fecha") LocalDateTime fecha,
+        @Param("idResena") Integer idResena,
+        Pageable pagina
+    );
 
+    // Reseñas guardadas antes de existir las columnas de extractos
+    @Query("SELECT r.idResena FROM ResenaModel r WHERE (r.extractoComentario IS NULL AND r.comentario IS NOT NULL) " +
+           "OR (r.extractoRespuesta IS NULL AND r.respuestaPropietario IS NOT NULL) ORDER BY r.idResena")
+    List<Integer> findIdsSinExtractos(Pageable lote);
+
+    // Reseñas guardadas antes de existir la columna id_propiedad
+    @Query("SELECT r.idResena FROM ResenaModel r WHERE r.idPropiedad IS NULL ORDER BY r.idResena")
+    List<Integer> findIdsSinPropiedad(Pageable lote);
+
+    @Modifying
+    @Query("UPDATE ResenaModel r SET r.idPropiedad = " +
+           "(SELECT res.propiedad.id_propiedad FROM ReservacionModel res WHERE res = r.reservacion) " +
+           "WHERE r.idResena IN :ids")
+    int rellenarIdPropiedad(@Param("ids") List<Integer> ids);
+
+    @Query("SELECT new com.example.apartamentos.dto.CalificacionesResena(r.reservacion.propiedad.id_propiedad, " +
+           "r.calificacionGeneral, r.calificacionLimpieza, r.calificacionUbicacion, r.calificacionComunicacion) " +
+           "FROM ResenaModel r WHERE r.idResena = :idResena")
+    Optional<CalificacionesResena> findCalificaciones(@Param("idResena") Integer idResena);
+
+    // Lectura con bloqueo (FOR UPDATE): devuelve la última versión confirmada aunque la transacción
+    // ya tenga una instantánea anterior, y hace esperar a otra edición de la misma reseña
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new com.example.apartamentos.dto.CalificacionesResena(r.reservacion.propiedad.id_propiedad, " +
+           "r.calificacionGeneral, r.calificacionLimpieza, r.calificacionUbicacion, r.calificacionComunicacion) " +
+           "FROM ResenaModel r WHERE r.idResena = :idResena")
+    Optional<CalificacionesResena> findCalificacionesForUpdate(@Param("idResena") Integer idResena);
+
+    @Query(SELECT_PUBLICADA + "WHERE r.idResena > :cursor ORDER BY r.idResena")
+    List<ResenaPublicada> findPageAfter(@Param("cursor") Integer cursor, Pageable pagina);
+}
@@ -1,53 +1,191 @@
 package com.example.apartamentos.repositories;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.apartamentos.dto.EstanciaReservacion;
+import com.example.apartamentos.dto.IntervaloReservacion;
+import com.example.apartamentos.dto.ReservacionDetalle;
+import com.example.apartamentos.dto.ReservacionExportada;
+import com.example.apartamentos.dto.ReservacionResumen;
+import com.example.apartamentos.dto.ReservacionVencida;
 import com.example.apartamentos.models.ReservacionModel;
 import com.example.apartamentos.models.ReservacionModel.EstadoReservacion;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface IReservacionRepository extends JpaRepository<ReservacionModel, Long> {
 
+    // Proyección de los listados: un solo SELECT con JOIN a propiedad y cliente, en lugar de
+    // cargar cada reservación y después sus proxies LAZY uno por uno al serializar
+    String SELECT_RESUMEN = "SELECT new com.example.apartamentos.dto.ReservacionResumen(" +
+           "r.id, r.codigoReserva, p.id_propiedad, p.titulo, c.id, CONCAT(c.nombres, ' ', c.apellidos), " +
+           "r.fechaEntrada, r.fechaSalida, r.numeroHuespedes, r.precioTotal, r.estado) " +
+           "FROM ReservacionModel r JOIN r.propiedad p JOIN r.cliente c ";
+
     // Buscar reservaciones por cliente
-    List<ReservacionModel> findByClienteId(Long idCliente);
+    @Query(SELECT_RESUMEN + "WHERE c.id = :idCliente ORDER BY r.id")
+    List<ReservacionResumen> findResumenByCliente(@Param("idCliente") Long idCliente);
 
     // Buscar reservaciones por propiedad
-    List<ReservacionModel> findByPropiedadIdPropiedad(Long idPropiedad);
+    @Query(SELECT_RESUMEN + "WHERE p.id_propiedad = :idPropiedad ORDER BY r.id")
+    List<ReservacionResumen> findResumenByPropiedad(@Param("idPropiedad") Long idPropiedad);
 
     // Buscar reservaciones por estado
-    List<ReservacionModel> findByEstado(EstadoReservacion estado);
+    @Query(SELECT_RESUMEN + "WHERE r.estado = :estado ORDER BY r.id")
+    List<ReservacionResumen> findResumenByEstado(@Param("estado") EstadoReservacion estado);
 
     // Buscar reservaciones entre fechas (por fecha de reservación)
-    List<ReservacionModel> findByFechaReservacionBetween(java.time.LocalDateTime inicio, java.time.LocalDateTime fin);
+    @Query(SELECT_RESUMEN + "WHERE r.fechaReservacion BETWEEN :inicio AND :fin ORDER BY r.id")
+    List<ReservacionResumen> findResumenByFechaReservacionBetween(
+        @Param("inicio") LocalDateTime inicio,
+        @Param("fin") LocalDateTime fin
+    );
+
+    // Propiedad de una reservación, sin cargar la entidad
+    @Query("SELECT r.propiedad.id_propiedad FROM ReservacionModel r WHERE r.id = :idReservacion")
+    Optional<Long> findIdPropiedad(@Param("idReservacion") Long idReservacion);
+
+    // Detalle de una reservación con los datos de propiedad y cliente en la misma consulta
+    @Query("SELECT new com.example.apartamentos.dto.ReservacionDetalle(" +
+           "r.id, r.codigoReserva, r.estado, r.fechaEntrada, r.fechaSalida, r.numeroHuespedes, r.precioTotal, " +
+           "r.fechaReservacion, r.fechaCheckin, r.fechaCheckout, r.notas, " +
+           "p.id_propiedad, p.titulo, p.direccion, p.ciudad, " +
+           "c.id, CONCAT(c.nombres, ' ', c.apellidos), c.email, c.telefono) " +
+           "FROM ReservacionModel r JOIN r.propiedad p JOIN r.cliente c WHERE r.id = :idReservacion")
+    Optional<ReservacionDetalle> findDetalleById(@Param("idReservacion") Long idReservacion);
 
     // Buscar reservaciones por código
     ReservacionModel findByCodigoReserva(String codigoReserva);
 
-    // Verificar solapamiento de fechas para una propiedad (crucial para disponibilidad)
-    @Query("SELECT r FROM ReservacionModel r WHERE r.propiedad.id_propiedad = :idPropiedad " +
+    // Verificar solapamiento de fechas para una propiedad (crucial para disponibilidad).
+    // EXISTS se detiene en la primera fila que se cruza (COUNT las recorrería todas), no hidrata
+    // entidades ni proxies y únicamente toca columnas de idx_reservacion_disponibilidad, así que
+    // MySQL la resuelve leyendo solo el índice
+    @Query("SELECT CASE WHEN EXISTS (SELECT 1 FROM ReservacionModel r WHERE r.propiedad.id_propiedad = :idPropiedad " +
            "AND r.estado IN ('confirmada', 'pendiente') " +
-           "AND ((r.fechaEntrada <= :fechaSalida AND r.fechaSalida >= :fechaEntrada))")
-    List<ReservacionModel> findOverlappingReservations(
+           "AND r.fechaEntrada <= :fechaSalida AND r.fechaSalida >= :fechaEntrada) THEN true ELSE false END")
+    boolean existsOverlappingReservation(
         @Param("idPropiedad") Long idPropiedad,
         @Param("fechaEntrada") LocalDate fechaEntrada,
         @Param("fechaSalida") LocalDate fechaSalida
     );
 
-    // Obtener todas las fechas ocupadas para una propiedad en un mes específico
-    @Query("SELECT r FROM ReservacionModel r WHERE r.propiedad.id_propiedad = :idPropiedad " +
+    // Igual que la anterior pero excluyendo en SQL a la propia reservación (para actualizarla); el id
+    // también está en el índice, porque InnoDB guarda la llave primaria en cada índice secundario
+    @Query("SELECT CASE WHEN EXISTS (SELECT 1 FROM ReservacionModel r WHERE r.propiedad.id_propiedad = :idPropiedad " +
+           "AND r.id <> :idReservacion " +
+           "AND r.estado IN ('confirmada', 'pendiente') " +
+           "AND r.fechaEntrada <= :fechaSalida AND r.fechaSalida >= :fechaEntrada) THEN true ELSE false END")
+    boolean existsOverlappingReservationExcluding(
+        @Param("idPropiedad") Long idPropiedad,
+        @Param("fechaEntrada") LocalDate fechaEntrada,
+        @Param("fechaSalida") LocalDate fechaSalida,
+        @Param("idReservacion") Long idReservacion
+    );
+
+    // Intervalos activos (pendientes o confirmados) de una propiedad, sin hidratar entidades
+    @Query("SELECT new com.example.apartamentos.dto.IntervaloReservacion(" +
+           "r.id, r.propiedad.id_propiedad, r.fechaEntrada, r.fechaSalida) " +
+           "FROM ReservacionModel r WHERE r.propiedad.id_propiedad = :idPropiedad " +
+           "AND r.estado IN ('confirmada', 'pendiente')")
+    List<IntervaloReservacion> findActiveIntervalsByPropiedad(@Param("idPropiedad") Long idPropiedad);
+
+    // Intervalos activos de una propiedad que tocan el rango [desde, hasta].
+    // Predicado de rango sobre las columnas (sin YEAR()/MONTH()) para que pueda usar índices
+    // y para incluir estancias que abarcan el rango completo.
+    @Query("SELECT new com.example.apartamentos.dto.IntervaloReservacion(" +
+           "r.id, r.propiedad.id_propiedad, r.fechaEntrada, r.fechaSalida) " +
+           "FROM ReservacionModel r WHERE r.propiedad.id_propiedad = :idPropiedad " +
            "AND r.estado IN ('confirmada', 'pendiente') " +
-           "AND ((YEAR(r.fechaEntrada) = :anio AND MONTH(r.fechaEntrada) = :mes) " +
-           "OR (YEAR(r.fechaSalida) = :anio AND MONTH(r.fechaSalida) = :mes))")
-    List<ReservacionModel> findReservationsByPropertyAndMonth(
+           "AND r.fechaEntrada <= :hasta AND r.fechaSalida >= :desde")
+    List<IntervaloReservacion> findIntervalsByPropiedadBetween(
         @Param("idPropiedad") Long idPropiedad,
-        @Param("mes") int mes,
-        @Param("anio") int anio
+        @Param("desde") LocalDate desde,
+        @Param("hasta") LocalDate hasta
     );
 
+    // Lote de pendientes creadas antes de 'limite'. Hibernate añade FOR UPDATE también a esta
+    // proyección: las filas quedan bloqueadas hasta el commit del lote, así que una confirmación
+    // concurrente (UPDATE condicional de cambiarEstado) espera y después ya no las encuentra pendientes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new com.example.apartamentos.dto.ReservacionVencida(" +
+           "r.id, r.propiedad.id_propiedad, r.cliente.id, r.fechaEntrada, r.fechaSalida, r.precioTotal) " +
+           "FROM ReservacionModel r WHERE r.estado = :pendiente AND r.fechaReservacion < :limite " +
+           "ORDER BY r.id")
+    List<ReservacionVencida> findExpiredPending(
+        @Param("pendiente") EstadoReservacion pendiente,
+        @Param("limite") LocalDateTime limite,
+        Pageable lote
+    );
+
+    // Reservación bloqueada (FOR UPDATE) hasta el fin de la transacción, para modificarla
+    // sin que el barrido de pendientes la cancele a la vez
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM ReservacionModel r WHERE r.id = :idReservacion")
+    Optional<ReservacionModel> findByIdForUpdate(@Param("idReservacion") Long idReservacion);
+
+    // Transición de estado condicional: devuelve 0 si la reservación ya no está en 'esperado'
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ReservacionModel r SET r.estado = :nuevo " +
+           "WHERE r.id = :idReservacion AND r.estado = :esperado")
+    int cambiarEstado(
+        @Param("idReservacion") Long idReservacion,
+        @Param("esperado") EstadoReservacion esperado,
+        @Param("nuevo") EstadoReservacion nuevo
+    );
+
+    // Cancela solo si sigue activa (pendiente o confirmada): devuelve 0 si otro proceso ya la
+    // canceló o finalizó, y no toca ninguna otra columna
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ReservacionModel r SET r.estado = com.example.apartamentos.models.ReservacionModel.EstadoReservacion.cancelada " +
+           "WHERE r.id = :idReservacion AND r.estado IN ('pendiente', 'confirmada')")
+    int cancelarActiva(@Param("idReservacion") Long idReservacion);
+
+    // Cancela un lote completo con un único UPDATE
+    @Modifying
+    @Query("UPDATE ReservacionModel r SET r.estado = :cancelada " +
+           "WHERE r.id IN :ids AND r.estado = :pendiente")
+    int cancelPendingByIds(
+        @Param("ids") List<Long> ids,
+        @Param("pendiente") EstadoReservacion pendiente,
+        @Param("cancelada") EstadoReservacion cancelada
+    );
+
+    // Exportación completa con un cursor de solo avance; ver IPropiedadRepository.streamExportacion
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT new com.example.apartamentos.dto.ReservacionExportada(" +
+           "r.id, r.codigoReserva, r.propiedad.id_propiedad, r.cliente.id, r.fechaEntrada, r.fechaSalida, " +
+           "r.numeroHuespedes, r.precioTotal, r.estado, r.fechaReservacion, r.fechaCheckin, r.fechaCheckout, r.notas) " +
+           "FROM ReservacionModel r ORDER BY r.id")
+    Stream<ReservacionExportada> streamExportacion();
+
+    // Listado por cursor: recorre la PK desde el último id entregado, sin OFFSET ni COUNT
+    @Query(SELECT_RESUMEN + "WHERE r.id > :cursor ORDER BY r.id")
+    List<ReservacionResumen> findResumenPageAfter(@Param("cursor") Long cursor, Pageable pagina);
+
+    // Reservaciones de una propiedad (en cualquier estado) cuya estancia toca [inicio, fin)
+    @Query("SELECT new com.example.apartamentos.dto.EstanciaReservacion(r.fechaEntrada, r.fechaSalida, " +
+           "r.precioTotal, r.estado) FROM ReservacionModel r WHERE r.propiedad.id_propiedad = :idPropiedad " +
+           "AND r.fechaEntrada < :fin AND r.fechaSalida > :inicio")
+    List<EstanciaReservacion> findEstancias(
+        @Param("idPropiedad") Long idPropiedad,
+        @Param("inicio") LocalDate inicio,
+        @Param("fin") LocalDate fin
+    );
 }
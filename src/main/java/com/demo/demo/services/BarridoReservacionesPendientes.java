@@ -0,0 +1,79 @@
+package com.example.apartamentos.services;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.apartamentos.dto.ReservacionVencida;
+import com.example.apartamentos.events.DespachadorEventosReservacion;
+import com.example.apartamentos.events.ReservacionEvento;
+import com.example.apartamentos.models.ReservacionModel.EstadoReservacion;
+import com.example.apartamentos.repositories.IReservacionRepository;
+
+// Cancela las reservaciones pendientes cuyo apartado venció (checkouts abandonados), para que
+// dejen de bloquear fechas. Trabaja en lotes acotados, cada uno en su propia transacción:
+// un SELECT ... FOR UPDATE del lote y un único UPDATE, sin cargar ni guardar entidades.
+@Component
+public class BarridoReservacionesPendientes {
+
+    private static final Logger log = LoggerFactory.getLogger(BarridoReservacionesPendientes.class);
+
+    private final IReservacionRepository reservacionRepository;
+    private final DespachadorEventosReservacion despachadorEventos;
+    private final TransactionTemplate transactionTemplate;
+    private final long ttlMinutos;
+    private final int tamanoLote;
+
+    public BarridoReservacionesPendientes(IReservacionRepository reservacionRepository,
+                                          DespachadorEventosReservacion despachadorEventos,
+                                          TransactionTemplate transactionTemplate,
+                                          @Value("${reservaciones.pendiente.ttl-minutos:30}") long ttlMinutos,
+                                          @Value("${reservaciones.pendiente.lote:500}") int tamanoLote) {
+        this.reservacionRepository = reservacionRepository;
+        this.despachadorEventos = despachadorEventos;
+        this.transactionTemplate = transactionTemplate;
+        this.ttlMinutos = ttlMinutos;
+        this.tamanoLote = tamanoLote;
+    }
+
+    @Scheduled(fixedDelayString = "${reservaciones.pendiente.barrido-ms:60000}")
+    public void barrer() {
+        LocalDateTime limite = LocalDateTime.now().minusMinutes(ttlMinutos);
+        int total = 0;
+        int cancelados;
+        do {
+            cancelados = transactionTemplate.execute(status -> cancelarLote(limite));
+            total += cancelados;
+        } while (cancelados == tamanoLote);
+
+        if (total > 0) {
+            log.info("Reservaciones pendientes vencidas canceladas: {}", total);
+        }
+    }
+
+    private int cancelarLote(LocalDateTime limite) {
+        List<ReservacionVencida> vencidas = reservacionRepository.findExpiredPending(
+            EstadoReservacion.pendiente, limite, PageRequest.of(0, tamanoLote));
+        if (vencidas.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = vencidas.stream().map(ReservacionVencida::idReservacion).toList();
+        reservacionRepository.cancelPendingByIds(ids, EstadoReservacion.pendiente, EstadoReservacion.cancelada);
+
+        // Las filas están bloqueadas desde el SELECT, así que todas pasaron a canceladas
+        for (ReservacionVencida vencida : vencidas) {
+            despachadorEventos.publicar(new ReservacionEvento.Cancelled(
+                vencida.idReservacion(), vencida.idPropiedad(), vencida.idCliente(),
+                vencida.fechaEntrada(), vencida.fechaSalida(), vencida.precioTotal()));
+        }
+        return vencidas.size();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.apartamentos.services;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Candados por propiedad dentro del nodo. Se usa un arreglo fijo de franjas (lock striping):
+// reservas de la misma propiedad se serializan, propiedades distintas casi nunca se estorban
+// y no hace falta crear ni limpiar un candado por cada id_propiedad.
+@Component
+public class BloqueoPropiedades {
+
+    private final ReentrantLock[] franjas;
+
+    private final AtomicLong adquisiciones = new AtomicLong();
+    private final AtomicLong contenciones = new AtomicLong();
+    private final AtomicLong esperaTotalNanos = new AtomicLong();
+    private final AtomicLong esperaMaximaNanos = new AtomicLong();
+
+    public BloqueoPropiedades(@Value("${reservaciones.bloqueo.franjas:64}") int numeroFranjas) {
+        if (numeroFranjas < 1) {
+            throw new IllegalArgumentException("El número de franjas debe ser al menos 1");
+        }
+        this.franjas = new ReentrantLock[numeroFranjas];
+        for (int i = 0; i < numeroFranjas; i++) {
+            franjas[i] = new ReentrantLock();
+        }
+    }
+
+    // Ejecuta la acción con la franja de la propiedad tomada
+    public <T> T ejecutar(Long idPropiedad, Supplier<T> accion) {
+        ReentrantLock candado = franjas[Math.floorMod(idPropiedad.hashCode(), franjas.length)];
+        adquisiciones.incrementAndGet();
+        if (!candado.tryLock()) {
+            contenciones.incrementAndGet();
+            long inicio = System.nanoTime();
+            candado.lock();
+            long espera = System.nanoTime() - inicio;
+            esperaTotalNanos.addAndGet(espera);
+            esperaMaximaNanos.accumulateAndGet(espera, Math::max);
+        }
+        try {
+            return accion.get();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    public Map<String, Object> estadisticas() {
+        long totalContenciones = contenciones.get();
+        return Map.of(
+            "franjas", franjas.length,
+            "adquisiciones", adquisiciones.get(),
+            "contenciones", totalContenciones,
+            "esperaPromedioMs", totalContenciones == 0 ? 0.0 : esperaTotalNanos.get() / 1e6 / totalContenciones,
+            "esperaMaximaMs", esperaMaximaNanos.get() / 1e6
+        );
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.apartamentos.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import com.example.apartamentos.dto.PropiedadCercana;
+import com.example.apartamentos.models.Comodidad;
+import com.example.apartamentos.models.PropiedadModel;
+import com.example.apartamentos.repositories.IPropiedadRepository;
+import com.example.apartamentos.util.Geohash;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+// Búsquedas por radio y por área de mapa. Los candidatos se acotan por celda geohash
+// (rangos de LIKE 'celda%' sobre una columna indexada, más el rango de latitud/longitud) y la
+// propia consulta los ordena por distancia (haversine) antes del LIMIT: nunca se corta una
+// lista ordenada por id, que dejaría fuera a las más cercanas si hay muchos candidatos.
+@Component
+public class BusquedaGeografica {
+
+    private static final Sort POR_ID = Sort.by("id_propiedad");
+    private static final double RADIANES_POR_GRADO = Math.PI / 180;
+
+    private final IPropiedadRepository propiedadRepository;
+    private final Paginacion paginacion;
+    private final double radioMaximoKm;
+    private final int celdasMaximas;
+
+    public BusquedaGeografica(IPropiedadRepository propiedadRepository,
+                              Paginacion paginacion,
+                              @Value("${propiedades.geo.radio-maximo-km:100}") double radioMaximoKm,
+                              @Value("${propiedades.geo.celdas-maximas:32}") int celdasMaximas) {
+        this.propiedadRepository = propiedadRepository;
+        this.paginacion = paginacion;
+        this.radioMaximoKm = radioMaximoKm;
+        this.celdasMaximas = celdasMaximas;
+    }
+
+    // Propiedades a menos de radioKm del punto, de la más cercana a la más lejana
+    public List<PropiedadCercana> cerca(double latitud, double longitud, double radioKm, Set<Comodidad> comodidades,
+                                        Integer limite) {
+        validarPunto(latitud, longitud);
+        if (!(radioKm > 0) || radioKm > radioMaximoKm) {
+            throw new IllegalArgumentException("El radio debe ser mayor que 0 y de máximo " + radioMaximoKm + " km");
+        }
+        int tamano = paginacion.limite(limite);
+
+        // Con celdas al menos tan grandes como el radio, el círculo cabe en la celda del punto y sus vecinas
+        int precision = Geohash.precisionParaRadio(latitud, radioKm);
+        Set<String> celdas = precision == 0 ? Set.of() : Geohash.celdaYVecinas(latitud, longitud, precision);
+        double grados = Geohash.kmAGradosLatitud(radioKm);
+        Specification<PropiedadModel> filtro = enCeldas(celdas)
+            .and(entreLatitudes(latitud - grados, latitud + grados))
+            .and(conComodidades(comodidades))
+            .and(dentroDelRadio(latitud, longitud, radioKm));
+
+        return masCercanas(filtro, latitud, longitud, tamano);
+    }
+
+    // Propiedades dentro del área visible del mapa. Si se da un punto (latitud, longitud) se ordenan
+    // por distancia a él; si no, por id. oeste > este indica que el área cruza el antimeridiano.
+    public List<PropiedadCercana> enArea(double sur, double oeste, double norte, double este,
+                                         Double latitud, Double longitud, Set<Comodidad> comodidades,
+                                         Integer limite) {
+        validarPunto(sur, oeste);
+        validarPunto(norte, este);
+        if (sur > norte) {
+            throw new IllegalArgumentException("El límite sur debe ser menor o igual que el norte");
+        }
+        if ((latitud == null) != (longitud == null)) {
+            throw new IllegalArgumentException("Para ordenar por distancia se requieren latitud y longitud");
+        }
+        int tamano = paginacion.limite(limite);
+
+        Specification<PropiedadModel> filtro = enCeldas(Geohash.cubrirCaja(sur, oeste, norte, este, celdasMaximas))
+            .and(entreLatitudes(sur, norte))
+            .and(entreLongitudes(oeste, este))
+            .and(conComodidades(comodidades));
+
+        if (latitud == null) {
+            List<PropiedadCercana> resultado = new ArrayList<>();
+            for (PropiedadModel propiedad : candidatos(filtro, tamano)) {
+                resultado.add(new PropiedadCercana(propiedad, null));
+            }
+            return resultado;
+        }
+        validarPunto(latitud, longitud);
+        return masCercanas(filtro, latitud, longitud, tamano);
+    }
+
+    private List<PropiedadModel> candidatos(Specification<PropiedadModel> filtro, int maximo) {
+        return propiedadRepository.findBy(filtro, consulta -> consulta.sortBy(POR_ID).limit(maximo).all());
+    }
+
+    // Las 'tamano' más cercanas: ORDER BY distancia, id y LIMIT en la base de datos; en Java solo
+    // se calcula la distancia en km de las filas devueltas
+    private List<PropiedadCercana> masCercanas(Specification<PropiedadModel> filtro, double latitud,
+                                               double longitud, int tamano) {
+        Specification<PropiedadModel> ordenada = filtro.and((root, query, cb) -> {
+            query.orderBy(cb.asc(haverseno(root, cb, latitud, longitud)), cb.asc(root.get("id_propiedad")));
+            return cb.conjunction();
+        });
+        List<PropiedadCercana> resultado = new ArrayList<>();
+        for (PropiedadModel propiedad : propiedadRepository.findBy(ordenada, consulta -> consulta.limit(tamano).all())) {
+            resultado.add(new PropiedadCercana(propiedad,
+                Geohash.distanciaKm(latitud, longitud, propiedad.getLatitud(), propiedad.getLongitud())));
+        }
+        return resultado;
+    }
+
+    private static Specification<PropiedadModel> dentroDelRadio(double latitud, double longitud, double radioKm) {
+        double maximo = Geohash.haversenoParaKm(radioKm);
+        return (root, query, cb) -> cb.le(haverseno(root, cb, latitud, longitud), maximo);
+    }
+
+    // 'a' de la fórmula de haversine (la de Geohash.distanciaKm) entre el punto y cada fila:
+    // sin²(Δlat/2) + cos(lat1)·cos(lat2)·sin²(Δlon/2). Crece con la distancia y, por ser
+    // periódica en la longitud, también vale para áreas que cruzan el antimeridiano.
+    private static Expression<Double> haverseno(Root<PropiedadModel> root, CriteriaBuilder cb,
+                                                double latitud, double longitud) {
+        Expression<Double> senoLatitud = cb.function("sin", Double.class,
+            cb.prod(cb.diff(root.<Double>get("latitud"), latitud), RADIANES_POR_GRADO / 2));
+        Expression<Double> senoLongitud = cb.function("sin", Double.class,
+            cb.prod(cb.diff(root.<Double>get("longitud"), longitud), RADIANES_POR_GRADO / 2));
+        Expression<Double> cosenoLatitud = cb.function("cos", Double.class,
+            cb.prod(root.<Double>get("latitud"), RADIANES_POR_GRADO));
+        return cb.sum(
+            cb.prod(senoLatitud, senoLatitud),
+            cb.prod(cb.prod(cosenoLatitud, Math.cos(latitud * RADIANES_POR_GRADO)),
+                cb.prod(senoLongitud, senoLongitud)));
+    }
+
+    // Sin celdas (área o radio demasiado grandes) no se filtra por geohash
+    private static Specification<PropiedadModel> enCeldas(Set<String> celdas) {
+        return (root, query, cb) -> celdas.isEmpty()
+            ? cb.conjunction()
+            : cb.or(celdas.stream()
+                .map(celda -> cb.like(root.get("geohash"), celda + "%"))
+                .toArray(Predicate[]::new));
+    }
+
+    private static Specification<PropiedadModel> entreLatitudes(double desde, double hasta) {
+        return (root, query, cb) -> cb.between(root.get("latitud"), desde, hasta);
+    }
+
+    private static Specification<PropiedadModel> entreLongitudes(double oeste, double este) {
+        return (root, query, cb) -> oeste <= este
+            ? cb.between(root.get("longitud"), oeste, este)
+            : cb.or(cb.ge(root.get("longitud"), oeste), cb.le(root.get("longitud"), este));
+    }
+
+    // Todas las comodidades pedidas: comodidades_mask & requeridas = requeridas
+    private static Specification<PropiedadModel> conComodidades(Set<Comodidad> comodidades) {
+        long requeridas = comodidades == null ? 0 : Comodidad.mascara(comodidades);
+        return (root, query, cb) -> requeridas == 0
+            ? cb.conjunction()
+            : cb.equal(cb.function("bitand", Long.class, root.get("comodidadesMask"), cb.literal(requeridas)),
+                requeridas);
+    }
+
+    private static void validarPunto(double latitud, double longitud) {
+        if (latitud < -90 || latitud > 90 || longitud < -180 || longitud > 180) {
+            throw new IllegalArgumentException("Coordenadas fuera de rango: " + latitud + ", " + longitud);
+        }
+    }
+}
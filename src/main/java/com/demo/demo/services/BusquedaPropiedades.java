@@ -0,0 +1,372 @@
+package com.example.apartamentos.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.apartamentos.dto.FiltroPropiedades;
+import com.example.apartamentos.dto.PaginaCursor;
+import com.example.apartamentos.dto.ResultadoBusqueda;
+import com.example.apartamentos.models.Comodidad;
+import com.example.apartamentos.models.PropiedadModel;
+import com.example.apartamentos.models.ReservacionModel;
+import com.example.apartamentos.models.ReservacionModel.EstadoReservacion;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+
+// Búsqueda de propiedades con filtros opcionales, orden, paginación por llave y facetas.
+// Solo se agregan al WHERE los filtros presentes, así cada combinación produce una consulta
+// simple que puede usar los índices compuestos declarados en PropiedadModel.
+// Con texto libre, el índice de texto da los ids candidatos y su puntaje de relevancia.
+@Component
+public class BusquedaPropiedades {
+
+    public enum Orden {
+        relevancia,
+        id,
+        precio_asc,
+        precio_desc,
+        // Mejor calificación general primero (agregado guardado en la propiedad)
+        calificacion
+    }
+
+    // Límites superiores de los rangos de precio por noche; el último rango queda abierto
+    private static final double[] LIMITES_PRECIO = { 500, 1000, 2000, 5000 };
+    private static final int MAXIMO_CIUDADES = 20;
+
+    // Faceta cuyo propio filtro se omite al contarla
+    private enum Faceta {
+        NINGUNA,
+        CIUDAD,
+        PRECIO,
+        HABITACIONES
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Paginacion paginacion;
+    private final IndiceTexto indiceTexto;
+    private final IndiceComodidades indiceComodidades;
+    private final int maximoResultadosTexto;
+
+    public BusquedaPropiedades(Paginacion paginacion,
+                               IndiceTexto indiceTexto,
+                               IndiceComodidades indiceComodidades,
+                               @Value("${propiedades.texto.max-resultados:1000}") int maximoResultadosTexto) {
+        this.paginacion = paginacion;
+        this.indiceTexto = indiceTexto;
+        this.indiceComodidades = indiceComodidades;
+        this.maximoResultadosTexto = maximoResultadosTexto;
+    }
+
+    @Transactional(readOnly = true)
+    public ResultadoBusqueda buscar(FiltroPropiedades filtro, Orden orden, String cursor, Integer limite) {
+        validar(filtro);
+        int tamano = paginacion.limite(limite);
+
+        Map<Long, Double> puntajes = null;
+        if (filtro.texto() != null && !filtro.texto().isBlank()) {
+            long requeridas = comodidadesRequeridas(filtro);
+            puntajes = indiceTexto.buscar(filtro.texto(), maximoResultadosTexto,
+                id -> indiceComodidades.tieneTodas(id, requeridas));
+        }
+        Orden ordenEfectivo = orden != null ? orden : puntajes != null ? Orden.relevancia : Orden.id;
+        if (ordenEfectivo == Orden.relevancia && puntajes == null) {
+            throw new IllegalArgumentException("El orden por relevancia requiere un texto a buscar");
+        }
+        Collection<Long> ids = puntajes == null ? null : puntajes.keySet();
+
+        String clave = PaginaCursor.decodificarClave(cursor);
+        List<PropiedadModel> filas = ordenEfectivo == Orden.relevancia
+            ? paginaPorRelevancia(filtro, puntajes, clave, tamano)
+            : pagina(filtro, ids, ordenEfectivo, clave, tamano);
+        String siguienteCursor = null;
+        if (filas.size() > tamano) {
+            filas = filas.subList(0, tamano);
+            siguienteCursor = cursorDe(filas.get(tamano - 1), ordenEfectivo, puntajes);
+        }
+
+        // Las facetas no cambian al avanzar de página: solo se cuentan en la primera
+        if (clave != null) {
+            return new ResultadoBusqueda(filas, siguienteCursor, null, null, null);
+        }
+        return new ResultadoBusqueda(filas, siguienteCursor,
+            contarPorCiudad(filtro, ids), contarPorRangoPrecio(filtro, ids), contarPorHabitaciones(filtro, ids));
+    }
+
+    private List<PropiedadModel> pagina(FiltroPropiedades filtro, Collection<Long> ids, Orden orden, String clave,
+            int tamano) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PropiedadModel> query = cb.createQuery(PropiedadModel.class);
+        Root<PropiedadModel> p = query.from(PropiedadModel.class);
+        Path<Long> id = p.get("id_propiedad");
+        // Columna del orden además del id (precio o calificación). Las propiedades aún sin agregados
+        // (calificación null, hasta que termine el relleno al arrancar) cuentan como 0 tanto al ordenar
+        // como en el cursor; comparar la columna cruda contra ese 0 las dejaría fuera tras la 1a página
+        Expression<Double> valor = orden == Orden.calificacion
+            ? cb.coalesce(p.<Double>get("calificacionPromedio"), 0.0)
+            : p.get("precio_noche");
+
+        List<Predicate> predicados = filtros(filtro, ids, Faceta.NINGUNA, p, query, cb);
+        if (clave != null) {
+            predicados.add(despuesDelCursor(clave, orden, id, valor, cb));
+        }
+        query.select(p).where(predicados.toArray(Predicate[]::new));
+        switch (orden) {
+            case precio_asc -> query.orderBy(cb.asc(valor), cb.asc(id));
+            case precio_desc, calificacion -> query.orderBy(cb.desc(valor), cb.desc(id));
+            default -> query.orderBy(cb.asc(id));
+        }
+
+        return entityManager.createQuery(query).setMaxResults(tamano + 1).getResultList();
+    }
+
+    // Los candidatos del texto ya vienen acotados (máximo maximoResultadosTexto) y se ordenan aquí por
+    // puntaje, con el id como desempate. Solo se cargan los que siguen al cursor, por bloques en ese
+    // orden, hasta juntar una página que pase los filtros de la base de datos
+    private List<PropiedadModel> paginaPorRelevancia(FiltroPropiedades filtro, Map<Long, Double> puntajes,
+            String clave, int tamano) {
+        List<Long> ranking = puntajes.keySet().stream()
+            .sorted(Comparator.<Long, Double>comparing(puntajes::get).reversed().thenComparing(Comparator.naturalOrder()))
+            .toList();
+        int desde = 0;
+        if (clave != null) {
+            double ultimoPuntaje;
+            long ultimoId;
+            try {
+                String[] partes = clave.split("\\|");
+                ultimoPuntaje = Double.parseDouble(partes[0]);
+                ultimoId = Long.parseLong(partes[1]);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("El cursor no corresponde al orden " + Orden.relevancia);
+            }
+            while (desde < ranking.size()) {
+                long id = ranking.get(desde);
+                double puntaje = puntajes.get(id);
+                if (puntaje < ultimoPuntaje || (puntaje == ultimoPuntaje && id > ultimoId)) {
+                    break;
+                }
+                desde++;
+            }
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        List<PropiedadModel> filas = new ArrayList<>();
+        // Cada bloque dobla al anterior: pocas consultas aunque los filtros descarten muchos candidatos
+        int bloque = tamano + 1;
+        while (filas.size() <= tamano && desde < ranking.size()) {
+            List<Long> ids = ranking.subList(desde, Math.min(ranking.size(), desde + bloque));
+            CriteriaQuery<PropiedadModel> query = cb.createQuery(PropiedadModel.class);
+            Root<PropiedadModel> p = query.from(PropiedadModel.class);
+            query.select(p).where(filtros(filtro, ids, Faceta.NINGUNA, p, query, cb).toArray(Predicate[]::new));
+            Map<Long, PropiedadModel> porId = new HashMap<>();
+            for (PropiedadModel propiedad : entityManager.createQuery(query).getResultList()) {
+                porId.put(propiedad.getId_propiedad(), propiedad);
+            }
+            for (Long id : ids) {
+                PropiedadModel propiedad = porId.get(id);
+                if (propiedad != null && filas.size() <= tamano) {
+                    filas.add(propiedad);
+                }
+            }
+            desde += ids.size();
+            bloque *= 2;
+        }
+        return filas;
+    }
+
+    // Keyset: continúa justo después de la última fila entregada, con el mismo orden
+    private static Predicate despuesDelCursor(String clave, Orden orden, Path<Long> id, Expression<Double> valor,
+            CriteriaBuilder cb) {
+        try {
+            if (orden == Orden.id) {
+                return cb.greaterThan(id, Long.parseLong(clave));
+            }
+            String[] partes = clave.split("\\|");
+            double ultimoValor = Double.parseDouble(partes[0]);
+            long ultimoId = Long.parseLong(partes[1]);
+            if (orden == Orden.precio_asc) {
+                return cb.or(cb.greaterThan(valor, ultimoValor),
+                    cb.and(cb.equal(valor, ultimoValor), cb.greaterThan(id, ultimoId)));
+            }
+            return cb.or(cb.lessThan(valor, ultimoValor),
+                cb.and(cb.equal(valor, ultimoValor), cb.lessThan(id, ultimoId)));
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("El cursor no corresponde al orden " + orden);
+        }
+    }
+
+    private static String cursorDe(PropiedadModel ultima, Orden orden, Map<Long, Double> puntajes) {
+        String clave = switch (orden) {
+            case id -> ultima.getId_propiedad().toString();
+            case relevancia -> puntajes.get(ultima.getId_propiedad()) + "|" + ultima.getId_propiedad();
+            case calificacion -> (ultima.getCalificacionPromedio() == null ? 0.0 : ultima.getCalificacionPromedio())
+                + "|" + ultima.getId_propiedad();
+            default -> ultima.getPrecio_noche() + "|" + ultima.getId_propiedad();
+        };
+        return PaginaCursor.codificarClave(clave);
+    }
+
+    // Ciudades con más resultados, de mayor a menor
+    private Map<String, Long> contarPorCiudad(FiltroPropiedades filtro, Collection<Long> ids) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<PropiedadModel> p = query.from(PropiedadModel.class);
+        Path<String> ciudad = p.get("ciudad");
+        Expression<Long> total = cb.count(p);
+
+        query.multiselect(ciudad, total)
+            .where(filtros(filtro, ids, Faceta.CIUDAD, p, query, cb).toArray(Predicate[]::new))
+            .groupBy(ciudad)
+            .orderBy(cb.desc(total), cb.asc(ciudad));
+
+        Map<String, Long> conteo = new LinkedHashMap<>();
+        for (Tuple fila : entityManager.createQuery(query).setMaxResults(MAXIMO_CIUDADES).getResultList()) {
+            conteo.put(fila.get(ciudad), fila.get(total));
+        }
+        return conteo;
+    }
+
+    // Una sola fila con un SUM(CASE ...) por rango, en lugar de agrupar por una expresión
+    private Map<String, Long> contarPorRangoPrecio(FiltroPropiedades filtro, Collection<Long> ids) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<PropiedadModel> p = query.from(PropiedadModel.class);
+        Path<Double> precio = p.get("precio_noche");
+
+        List<String> etiquetas = new ArrayList<>();
+        List<Expression<Long>> sumas = new ArrayList<>();
+        double desde = 0;
+        for (int i = 0; i <= LIMITES_PRECIO.length; i++) {
+            Predicate enRango = i < LIMITES_PRECIO.length
+                ? cb.and(cb.ge(precio, desde), cb.lt(precio, LIMITES_PRECIO[i]))
+                : cb.ge(precio, desde);
+            etiquetas.add(i < LIMITES_PRECIO.length
+                ? String.format("%.0f-%.0f", desde, LIMITES_PRECIO[i])
+                : String.format("%.0f+", desde));
+            sumas.add(cb.sum(cb.<Long>selectCase().when(enRango, 1L).otherwise(0L)));
+            if (i < LIMITES_PRECIO.length) {
+                desde = LIMITES_PRECIO[i];
+            }
+        }
+
+        query.multiselect(new ArrayList<>(sumas))
+            .where(filtros(filtro, ids, Faceta.PRECIO, p, query, cb).toArray(Predicate[]::new));
+        Tuple fila = entityManager.createQuery(query).getSingleResult();
+
+        Map<String, Long> conteo = new LinkedHashMap<>();
+        for (int i = 0; i < etiquetas.size(); i++) {
+            Long valor = fila.get(i, Long.class);
+            conteo.put(etiquetas.get(i), valor == null ? 0L : valor);
+        }
+        return conteo;
+    }
+
+    private Map<Integer, Long> contarPorHabitaciones(FiltroPropiedades filtro, Collection<Long> ids) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<PropiedadModel> p = query.from(PropiedadModel.class);
+        Path<Integer> habitaciones = p.get("num_habitaciones");
+        Expression<Long> total = cb.count(p);
+
+        query.multiselect(habitaciones, total)
+            .where(filtros(filtro, ids, Faceta.HABITACIONES, p, query, cb).toArray(Predicate[]::new))
+            .groupBy(habitaciones)
+            .orderBy(cb.asc(habitaciones));
+
+        Map<Integer, Long> conteo = new LinkedHashMap<>();
+        for (Tuple fila : entityManager.createQuery(query).getResultList()) {
+            conteo.put(fila.get(habitaciones), fila.get(total));
+        }
+        return conteo;
+    }
+
+    private static List<Predicate> filtros(FiltroPropiedades f, Collection<Long> ids, Faceta excluida,
+            Root<PropiedadModel> p, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        List<Predicate> predicados = new ArrayList<>();
+        if (ids != null) {
+            // Sin coincidencias de texto no hay resultados (IN () no es SQL válido)
+            predicados.add(ids.isEmpty() ? cb.disjunction() : p.get("id_propiedad").in(ids));
+        }
+        if (f.ciudad() != null && excluida != Faceta.CIUDAD) {
+            predicados.add(cb.equal(p.get("ciudad"), f.ciudad()));
+        }
+        if (f.pais() != null) {
+            predicados.add(cb.equal(p.get("pais"), f.pais()));
+        }
+        if (f.estado() != null) {
+            predicados.add(cb.equal(p.get("estado"), f.estado()));
+        }
+        if (f.capacidadMin() != null) {
+            predicados.add(cb.ge(p.get("capacidad"), f.capacidadMin()));
+        }
+        if (f.habitacionesMin() != null && excluida != Faceta.HABITACIONES) {
+            predicados.add(cb.ge(p.get("num_habitaciones"), f.habitacionesMin()));
+        }
+        if (f.banosMin() != null) {
+            predicados.add(cb.ge(p.get("num_banos"), f.banosMin()));
+        }
+        if (f.precioMin() != null && excluida != Faceta.PRECIO) {
+            predicados.add(cb.ge(p.get("precio_noche"), f.precioMin()));
+        }
+        if (f.precioMax() != null && excluida != Faceta.PRECIO) {
+            predicados.add(cb.le(p.get("precio_noche"), f.precioMax()));
+        }
+        long requeridas = comodidadesRequeridas(f);
+        if (requeridas != 0) {
+            // bitand se traduce a comodidades_mask & :requeridas en MySQL
+            predicados.add(cb.equal(
+                cb.function("bitand", Long.class, p.get("comodidadesMask"), cb.literal(requeridas)), requeridas));
+        }
+        if (f.fechaEntrada() != null) {
+            predicados.add(cb.not(cb.exists(reservacionesQueSeCruzan(f, p, query, cb))));
+        }
+        return predicados;
+    }
+
+    // Mismo anti-join que IPropiedadRepository.findAvailableBetween
+    private static Subquery<Long> reservacionesQueSeCruzan(FiltroPropiedades f, Root<PropiedadModel> p,
+            CriteriaQuery<?> query, CriteriaBuilder cb) {
+        Subquery<Long> subquery = query.subquery(Long.class);
+        Root<ReservacionModel> r = subquery.from(ReservacionModel.class);
+        return subquery.select(r.get("id")).where(
+            cb.equal(r.get("propiedad"), p),
+            r.get("estado").in(EstadoReservacion.confirmada, EstadoReservacion.pendiente),
+            cb.lessThanOrEqualTo(r.get("fechaEntrada"), f.fechaSalida()),
+            cb.greaterThanOrEqualTo(r.get("fechaSalida"), f.fechaEntrada()));
+    }
+
+    private static long comodidadesRequeridas(FiltroPropiedades f) {
+        return f.comodidades() == null ? 0 : Comodidad.mascara(f.comodidades());
+    }
+
+    private static void validar(FiltroPropiedades f) {
+        if ((f.fechaEntrada() == null) != (f.fechaSalida() == null)) {
+            throw new IllegalArgumentException("Se requieren ambas fechas para filtrar por disponibilidad");
+        }
+        if (f.fechaEntrada() != null && !f.fechaSalida().isAfter(f.fechaEntrada())) {
+            throw new IllegalArgumentException("La fecha de salida debe ser posterior a la fecha de entrada");
+        }
+        if (f.precioMin() != null && f.precioMax() != null && f.precioMin() > f.precioMax()) {
+            throw new IllegalArgumentException("El precio mínimo no puede ser mayor que el máximo");
+        }
+    }
+}
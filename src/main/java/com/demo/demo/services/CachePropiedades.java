@@ -0,0 +1,130 @@
+package com.example.apartamentos.services;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.apartamentos.models.PropiedadModel;
+import com.example.apartamentos.repositories.IPropiedadRepository;
+
+// Caché de lectura de propiedades por id, acotada por tamaño (se expulsa la menos usada) y por
+// antigüedad (ttl). Se invalida al guardar o borrar una propiedad en este nodo; los cambios de
+// otros nodos se ven al vencer el ttl.
+// Las propiedades guardadas se comparten entre hilos: son de solo lectura, quien vaya a
+// modificar una debe leerla del repositorio.
+@Component
+public class CachePropiedades {
+
+    private final IPropiedadRepository propiedadRepository;
+    private final TransactionTemplate lectura;
+    private final int maximoEntradas;
+    private final long ttlNanos;
+
+    // Orden de acceso: la primera entrada es la usada hace más tiempo
+    private final LinkedHashMap<Long, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    // Cambia con cada invalidación; una carga que empezó antes no se guarda
+    private long version;
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong expulsiones = new AtomicLong();
+    private final AtomicLong expiraciones = new AtomicLong();
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    public CachePropiedades(IPropiedadRepository propiedadRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${propiedades.cache.maximo-entradas:10000}") int maximoEntradas,
+                            @Value("${propiedades.cache.ttl-segundos:300}") long ttlSegundos) {
+        if (maximoEntradas < 1) {
+            throw new IllegalArgumentException("El máximo de entradas debe ser al menos 1");
+        }
+        this.propiedadRepository = propiedadRepository;
+        // Transacción propia: la propiedad se carga en un contexto de persistencia aparte y queda
+        // separada de él, así nunca se guarda en la caché una entidad de la petición que la pidió
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.lectura.setReadOnly(true);
+        this.maximoEntradas = maximoEntradas;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSegundos);
+    }
+
+    public Optional<PropiedadModel> obtener(Long idPropiedad) {
+        long ahora = System.nanoTime();
+        long versionLeida;
+        synchronized (this) {
+            Entrada entrada = entradas.get(idPropiedad);
+            if (entrada != null) {
+                if (ahora - entrada.cargadaNanos() < ttlNanos) {
+                    aciertos.incrementAndGet();
+                    return Optional.of(entrada.propiedad());
+                }
+                entradas.remove(idPropiedad);
+                expiraciones.incrementAndGet();
+            }
+            versionLeida = version;
+        }
+
+        // La consulta va fuera del monitor para no detener los aciertos de otros hilos
+        fallos.incrementAndGet();
+        Optional<PropiedadModel> propiedad = lectura.execute(status ->
+            propiedadRepository.findById(idPropiedad).map(p -> {
+                // El propietario es LAZY y la entidad ya no tendrá sesión al serializarse
+                Hibernate.initialize(p.getPropietario());
+                return p;
+            }));
+        propiedad.ifPresent(p -> guardar(idPropiedad, p, versionLeida, ahora));
+        return propiedad;
+    }
+
+    public synchronized void invalidar(Long idPropiedad) {
+        entradas.remove(idPropiedad);
+        version++;
+        invalidaciones.incrementAndGet();
+    }
+
+    private synchronized void guardar(Long idPropiedad, PropiedadModel propiedad, long versionLeida, long cargadaNanos) {
+        if (version != versionLeida) {
+            return;
+        }
+        entradas.put(idPropiedad, new Entrada(propiedad, cargadaNanos));
+        if (entradas.size() > maximoEntradas) {
+            Iterator<Long> masAntigua = entradas.keySet().iterator();
+            masAntigua.next();
+            masAntigua.remove();
+            expulsiones.incrementAndGet();
+        }
+    }
+
+    public Map<String, Object> estadisticas() {
+        long totalAciertos = aciertos.get();
+        long totalFallos = fallos.get();
+        int tamano;
+        synchronized (this) {
+            tamano = entradas.size();
+        }
+        return Map.of(
+            "entradas", tamano,
+            "maximoEntradas", maximoEntradas,
+            "ttlSegundos", TimeUnit.NANOSECONDS.toSeconds(ttlNanos),
+            "aciertos", totalAciertos,
+            "fallos", totalFallos,
+            "tasaAciertos", totalAciertos + totalFallos == 0 ? 0.0 : (double) totalAciertos / (totalAciertos + totalFallos),
+            "expulsiones", expulsiones.get(),
+            "expiraciones", expiraciones.get(),
+            "invalidaciones", invalidaciones.get()
+        );
+    }
+
+    private record Entrada(PropiedadModel propiedad, long cargadaNanos) {
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.apartamentos.services;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+import com.example.apartamentos.dto.IntervaloReservacion;
+
+// Motor de calendario: fusiona los intervalos de las reservaciones en rangos ocupados
+// ordenados y sin solapes, recortados a una ventana de fechas. Todo es O(n log n) en el
+// número de reservaciones, sin recorrer ni buscar día por día.
+public final class CalendarioOcupacion {
+
+    // Rango de días ocupados, ambos extremos inclusivos
+    public record Rango(LocalDate desde, LocalDate hasta) {
+
+        public int dias() {
+            return (int) (hasta.toEpochDay() - desde.toEpochDay()) + 1;
+        }
+    }
+
+    public record CalendarioMes(int anio, int mes, int diasOcupados, List<Rango> rangos) {
+    }
+
+    private CalendarioOcupacion() {
+    }
+
+    // Fusiona los intervalos (entrada y salida inclusivas) dentro de [desde, hasta].
+    // Rangos que se tocan o se solapan se unen en uno solo.
+    public static List<Rango> fusionar(List<IntervaloReservacion> intervalos, LocalDate desde, LocalDate hasta) {
+        List<IntervaloReservacion> ordenados = new ArrayList<>(intervalos);
+        ordenados.sort(Comparator.comparing(IntervaloReservacion::fechaEntrada));
+
+        List<Rango> rangos = new ArrayList<>();
+        LocalDate inicioActual = null;
+        LocalDate finActual = null;
+        for (IntervaloReservacion intervalo : ordenados) {
+            LocalDate inicio = intervalo.fechaEntrada().isBefore(desde) ? desde : intervalo.fechaEntrada();
+            LocalDate fin = intervalo.fechaSalida().isAfter(hasta) ? hasta : intervalo.fechaSalida();
+            if (fin.isBefore(inicio)) {
+                continue;
+            }
+            if (finActual != null && !inicio.isAfter(finActual.plusDays(1))) {
+                if (fin.isAfter(finActual)) {
+                    finActual = fin;
+                }
+            } else {
+                if (finActual != null) {
+                    rangos.add(new Rango(inicioActual, finActual));
+                }
+                inicioActual = inicio;
+                finActual = fin;
+            }
+        }
+        if (finActual != null) {
+            rangos.add(new Rango(inicioActual, finActual));
+        }
+        return rangos;
+    }
+
+    // Bitset de días ocupados: el bit i corresponde a desde.plusDays(i)
+    public static BitSet aBitset(List<Rango> rangos, LocalDate desde) {
+        BitSet dias = new BitSet();
+        long base = desde.toEpochDay();
+        for (Rango rango : rangos) {
+            dias.set((int) (rango.desde().toEpochDay() - base), (int) (rango.hasta().toEpochDay() - base) + 1);
+        }
+        return dias;
+    }
+
+    // Lista ordenada de cada día ocupado
+    public static List<LocalDate> expandir(List<Rango> rangos) {
+        List<LocalDate> dias = new ArrayList<>();
+        for (Rango rango : rangos) {
+            for (LocalDate fecha = rango.desde(); !fecha.isAfter(rango.hasta()); fecha = fecha.plusDays(1)) {
+                dias.add(fecha);
+            }
+        }
+        return dias;
+    }
+
+    // Reparte rangos ya fusionados entre los meses consecutivos que empiezan en inicio
+    public static List<CalendarioMes> porMes(List<Rango> rangos, YearMonth inicio, int meses) {
+        List<CalendarioMes> calendario = new ArrayList<>(meses);
+        int indice = 0;
+        for (int i = 0; i < meses; i++) {
+            YearMonth mes = inicio.plusMonths(i);
+            LocalDate primerDia = mes.atDay(1);
+            LocalDate ultimoDia = mes.atEndOfMonth();
+
+            // Los rangos que terminaron antes de este mes ya no se vuelven a revisar
+            while (indice < rangos.size() && rangos.get(indice).hasta().isBefore(primerDia)) {
+                indice++;
+            }
+            List<Rango> delMes = new ArrayList<>();
+            int diasOcupados = 0;
+            for (int j = indice; j < rangos.size() && !rangos.get(j).desde().isAfter(ultimoDia); j++) {
+                Rango rango = rangos.get(j);
+                Rango recortado = new Rango(
+                    rango.desde().isBefore(primerDia) ? primerDia : rango.desde(),
+                    rango.hasta().isAfter(ultimoDia) ? ultimoDia : rango.hasta());
+                delMes.add(recortado);
+                diasOcupados += recortado.dias();
+            }
+            calendario.add(new CalendarioMes(mes.getYear(), mes.getMonthValue(), diasOcupados, delMes));
+        }
+        return calendario;
+    }
+}
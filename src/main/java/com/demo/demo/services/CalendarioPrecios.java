@@ -0,0 +1,137 @@
+package com.example.apartamentos.services;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.apartamentos.dto.PrecioEspecial;
+import com.example.apartamentos.models.PropiedadModel;
+import com.example.apartamentos.repositories.IDisponibilidadRepository;
+
+// Motor de precios noche a noche. Por propiedad se guarda un arreglo de precios por día
+// (precio_noche con los precioEspecial de disponibilidad ya aplicados) que empieza hoy y
+// cubre el horizonte configurado; cotizar una estancia es sumar un tramo del arreglo.
+// Se invalida al cambiar la propiedad o su disponibilidad y se reconstruye al cambiar de día.
+// Como CachePropiedades, está acotado por tamaño (se expulsa el calendario usado hace más tiempo)
+// y por antigüedad, para que los cambios de precios hechos en otros nodos se vean al vencer el ttl.
+@Component
+public class CalendarioPrecios {
+
+    private final CachePropiedades cachePropiedades;
+    private final IDisponibilidadRepository disponibilidadRepository;
+    private final int horizonteDias;
+    private final int maximoEntradas;
+    private final long ttlNanos;
+
+    // Orden de acceso: la primera entrada es la usada hace más tiempo
+    private final LinkedHashMap<Long, PreciosPropiedad> calendarios = new LinkedHashMap<>(16, 0.75f, true);
+    // Cambia con cada invalidación; un calendario que empezó a construirse antes no se guarda
+    private long version;
+
+    public CalendarioPrecios(CachePropiedades cachePropiedades,
+                             IDisponibilidadRepository disponibilidadRepository,
+                             @Value("${reservaciones.precios.horizonte-dias:730}") int horizonteDias,
+                             @Value("${reservaciones.precios.maximo-entradas:2000}") int maximoEntradas,
+                             @Value("${reservaciones.precios.ttl-segundos:300}") long ttlSegundos) {
+        if (maximoEntradas < 1) {
+            throw new IllegalArgumentException("El máximo de entradas debe ser al menos 1");
+        }
+        this.cachePropiedades = cachePropiedades;
+        this.disponibilidadRepository = disponibilidadRepository;
+        this.horizonteDias = horizonteDias;
+        this.maximoEntradas = maximoEntradas;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSegundos);
+    }
+
+    // Precio total de las noches entre fechaEntrada (incluida) y fechaSalida (excluida)
+    public double cotizar(Long idPropiedad, LocalDate fechaEntrada, LocalDate fechaSalida) {
+        long desde = fechaEntrada.toEpochDay();
+        long hasta = fechaSalida.toEpochDay();
+        if (hasta <= desde) {
+            throw new IllegalArgumentException("El número de días debe ser mayor que 0");
+        }
+
+        PreciosPropiedad calendario = obtener(idPropiedad);
+        int inicio = (int) (desde - calendario.origen());
+        int fin = (int) (hasta - calendario.origen());
+        if (inicio >= 0 && fin <= calendario.precios().length) {
+            double total = 0;
+            for (int i = inicio; i < fin; i++) {
+                total += calendario.precios()[i];
+            }
+            return total;
+        }
+
+        // Estancia fuera del horizonte precalculado: se cotiza solo ese rango contra la base de datos
+        double[] precios = construirPrecios(calendario.precioBase(), idPropiedad, fechaEntrada, (int) (hasta - desde));
+        double total = 0;
+        for (double precio : precios) {
+            total += precio;
+        }
+        return total;
+    }
+
+    public synchronized void invalidar(Long idPropiedad) {
+        calendarios.remove(idPropiedad);
+        version++;
+    }
+
+    private PreciosPropiedad obtener(Long idPropiedad) {
+        long hoy = LocalDate.now().toEpochDay();
+        long ahora = System.nanoTime();
+        long versionLeida;
+        synchronized (this) {
+            PreciosPropiedad calendario = calendarios.get(idPropiedad);
+            if (calendario != null && calendario.origen() == hoy && ahora - calendario.cargadoNanos() < ttlNanos) {
+                return calendario;
+            }
+            versionLeida = version;
+        }
+        // Se construye fuera del monitor para no detener las cotizaciones de otras propiedades
+        PreciosPropiedad calendario = cargar(idPropiedad, hoy, ahora);
+        guardar(idPropiedad, calendario, versionLeida);
+        return calendario;
+    }
+
+    private synchronized void guardar(Long idPropiedad, PreciosPropiedad calendario, long versionLeida) {
+        if (version != versionLeida) {
+            return;
+        }
+        calendarios.put(idPropiedad, calendario);
+        if (calendarios.size() > maximoEntradas) {
+            Iterator<Long> masAntiguo = calendarios.keySet().iterator();
+            masAntiguo.next();
+            masAntiguo.remove();
+        }
+    }
+
+    private PreciosPropiedad cargar(Long idPropiedad, long hoy, long cargadoNanos) {
+        PropiedadModel propiedad = cachePropiedades.obtener(idPropiedad)
+            .orElseThrow(() -> new IllegalArgumentException("Propiedad no encontrada con ID: " + idPropiedad));
+        double precioBase = propiedad.getPrecio_noche();
+        double[] precios = construirPrecios(precioBase, idPropiedad, LocalDate.ofEpochDay(hoy), horizonteDias);
+        return new PreciosPropiedad(hoy, precioBase, precios, cargadoNanos);
+    }
+
+    // Precio de cada noche desde 'desde': precio base salvo donde haya precio especial
+    private double[] construirPrecios(double precioBase, Long idPropiedad, LocalDate desde, int noches) {
+        double[] precios = new double[noches];
+        Arrays.fill(precios, precioBase);
+        List<PrecioEspecial> especiales = disponibilidadRepository.findSpecialPricesBetween(
+            idPropiedad, desde, desde.plusDays(noches - 1L));
+        long origen = desde.toEpochDay();
+        for (PrecioEspecial especial : especiales) {
+            precios[(int) (especial.fecha().toEpochDay() - origen)] = especial.precio();
+        }
+        return precios;
+    }
+
+    private record PreciosPropiedad(long origen, double precioBase, double[] precios, long cargadoNanos) {
+    }
+}
@@ -5,9 +5,13 @@ import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.apartamentos.dto.ClienteResumen;
+import com.example.apartamentos.dto.PaginaCursor;
 import com.example.apartamentos.models.ClienteModel;
 import com.example.apartamentos.repositories.IClienteRepository;
+import com.example.apartamentos.repositories.IMensajesNoLeidosRepository;
 
 @Service
 public class ClienteService {
@@ -15,19 +19,36 @@ public class ClienteService {
     @Autowired
     private IClienteRepository clienteRepository;
 
-    public List<ClienteModel> getAllClientes() {
-        return clienteRepository.findAll();
+    @Autowired
+    private IMensajesNoLeidosRepository noLeidosRepository;
+
+    @Autowired
+    private Paginacion paginacion;
+
+    public PaginaCursor<ClienteResumen> getAllClientes(String cursor, Integer limite) {
+        int tamano = paginacion.limite(limite);
+        List<ClienteResumen> filas = clienteRepository.findResumenPageAfter(PaginaCursor.decodificar(cursor), paginacion.unaPagina(tamano));
+        return PaginaCursor.de(filas, tamano, ClienteResumen::id);
     }
 
     public Optional<ClienteModel>  getClienteById(Long id) {
         return clienteRepository.findById(id);
     }
 
+    // Un cliente nuevo empieza con su contador de mensajes no leídos en cero
+    @Transactional
     public ClienteModel saveCliente(ClienteModel cliente) {
-        return clienteRepository.save(cliente);
+        boolean nuevo = cliente.getId() == null;
+        ClienteModel guardado = clienteRepository.save(cliente);
+        if (nuevo) {
+            noLeidosRepository.crear(guardado.getId());
+        }
+        return guardado;
     }
 
+    @Transactional
     public void deleteCliente(Long id) {
+        noLeidosRepository.eliminar(id);
         clienteRepository.deleteById(id);
     }
 
@@ -6,6 +6,8 @@ import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.example.apartamentos.dto.DisponibilidadResumen;
+import com.example.apartamentos.dto.PaginaCursor;
 import com.example.apartamentos.models.DisponibilidadModel;
 import com.example.apartamentos.repositories.IDisponibilidadRepository;
 
@@ -15,8 +17,16 @@ public class DisponibilidadService {
     @Autowired
     private IDisponibilidadRepository disponibilidadRepository;
 
-    public List<DisponibilidadModel> getAllDisponibilidades() {
-        return disponibilidadRepository.findAll();
+    @Autowired
+    private Paginacion paginacion;
+
+    @Autowired
+    private CalendarioPrecios calendarioPrecios;
+
+    public PaginaCursor<DisponibilidadResumen> getAllDisponibilidades(String cursor, Integer limite) {
+        int tamano = paginacion.limite(limite);
+        List<DisponibilidadResumen> filas = disponibilidadRepository.findPageAfter(PaginaCursor.decodificar(cursor), paginacion.unaPagina(tamano));
+        return PaginaCursor.de(filas, tamano, DisponibilidadResumen::idDisponibilidad);
     }
 
     public Optional<DisponibilidadModel> getDisponibilidadById(Long id) {
@@ -24,10 +34,21 @@ public class DisponibilidadService {
     }
 
     public DisponibilidadModel saveDisponibilidad(DisponibilidadModel disponibilidad) {
-        return disponibilidadRepository.save(disponibilidad);
+        // Si la edición mueve el día a otra propiedad, la anterior también deja de tener ese precio
+        Optional<Long> propiedadAnterior = disponibilidad.getIdDisponibilidad() == null
+            ? Optional.empty()
+            : disponibilidadRepository.findIdPropiedad(disponibilidad.getIdDisponibilidad());
+        DisponibilidadModel guardada = disponibilidadRepository.save(disponibilidad);
+        // El precio especial cambia las cotizaciones de la propiedad
+        Long idPropiedad = guardada.getPropiedad().getId_propiedad();
+        calendarioPrecios.invalidar(idPropiedad);
+        propiedadAnterior.filter(id -> !id.equals(idPropiedad)).ifPresent(calendarioPrecios::invalidar);
+        return guardada;
     }
 
     public void deleteDisponibilidad(Long id) {
+        Optional<DisponibilidadModel> disponibilidad = disponibilidadRepository.findById(id);
         disponibilidadRepository.deleteById(id);
+        disponibilidad.ifPresent(d -> calendarioPrecios.invalidar(d.getPropiedad().getId_propiedad()));
     }
 }
@@ -0,0 +1,168 @@
+package com.example.apartamentos.services;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.apartamentos.dto.PropiedadExportada;
+import com.example.apartamentos.dto.ReservacionExportada;
+import com.example.apartamentos.repositories.IPropiedadRepository;
+import com.example.apartamentos.repositories.IReservacionRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+// Volcado completo de tablas para el equipo de datos. Cada fila se lee del cursor, se escribe
+// y se descarta: son proyecciones (no entidades), así que no se acumulan en el contexto de
+// persistencia y la memoria no depende del tamaño de la tabla.
+@Component
+public class ExportacionDatos {
+
+    public enum Formato {
+        ndjson(MediaType.APPLICATION_NDJSON),
+        csv(new MediaType("text", "csv", StandardCharsets.UTF_8));
+
+        private final MediaType tipoContenido;
+
+        Formato(MediaType tipoContenido) {
+            this.tipoContenido = tipoContenido;
+        }
+
+        public MediaType tipoContenido() {
+            return tipoContenido;
+        }
+    }
+
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    private final IPropiedadRepository propiedadRepository;
+    private final IReservacionRepository reservacionRepository;
+    private final TransactionTemplate lectura;
+    private final ObjectWriter escritorJson;
+
+    public ExportacionDatos(IPropiedadRepository propiedadRepository,
+                            IReservacionRepository reservacionRepository,
+                            PlatformTransactionManager transactionManager,
+                            ObjectMapper objectMapper) {
+        this.propiedadRepository = propiedadRepository;
+        this.reservacionRepository = reservacionRepository;
+        // Se ejecuta en el hilo de la respuesta asíncrona, fuera de la transacción de la petición
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        // Una fila JSON por línea; se vacía al final y no se cierra la respuesta
+        this.escritorJson = objectMapper.writer()
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .withRootValueSeparator("\n");
+    }
+
+    public void exportarPropiedades(Formato formato, OutputStream salida) {
+        exportar(propiedadRepository::streamExportacion, PropiedadExportada.class, formato, salida);
+    }
+
+    public void exportarReservaciones(Formato formato, OutputStream salida) {
+        exportar(reservacionRepository::streamExportacion, ReservacionExportada.class, formato, salida);
+    }
+
+    private <T extends Record> void exportar(Supplier<Stream<T>> consulta, Class<T> tipo, Formato formato,
+                                             OutputStream salida) {
+        lectura.executeWithoutResult(status -> {
+            try (Stream<T> filas = consulta.get()) {
+                OutputStream buffer = new BufferedOutputStream(salida, TAMANO_BUFFER);
+                if (formato == Formato.csv) {
+                    escribirCsv(filas.iterator(), tipo, buffer);
+                } else {
+                    escribirNdjson(filas.iterator(), buffer);
+                }
+                buffer.flush();
+            } catch (IOException e) {
+                // Normalmente el cliente cerró la conexión: se corta la lectura y se libera el cursor
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private <T> void escribirNdjson(Iterator<T> filas, OutputStream salida) throws IOException {
+        if (!filas.hasNext()) {
+            return;
+        }
+        try (SequenceWriter secuencia = escritorJson.writeValues(salida)) {
+            while (filas.hasNext()) {
+                secuencia.write(filas.next());
+            }
+        }
+        salida.write('\n');
+    }
+
+    // CSV (RFC 4180) con encabezado tomado de los componentes del record
+    private <T extends Record> void escribirCsv(Iterator<T> filas, Class<T> tipo, OutputStream salida) throws IOException {
+        RecordComponent[] componentes = tipo.getRecordComponents();
+        Method[] accesores = new Method[componentes.length];
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), TAMANO_BUFFER);
+        for (int i = 0; i < componentes.length; i++) {
+            accesores[i] = componentes[i].getAccessor();
+            if (i > 0) {
+                escritor.write(',');
+            }
+            escritor.write(componentes[i].getName());
+        }
+        escritor.write("\r\n");
+
+        while (filas.hasNext()) {
+            T fila = filas.next();
+            for (int i = 0; i < accesores.length; i++) {
+                if (i > 0) {
+                    escritor.write(',');
+                }
+                Object valor = leer(accesores[i], fila);
+                if (valor != null) {
+                    escribirCampoCsv(valor.toString(), escritor);
+                }
+            }
+            escritor.write("\r\n");
+        }
+        escritor.flush();
+    }
+
+    private static Object leer(Method accesor, Object fila) {
+        try {
+            return accesor.invoke(fila);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("No se pudo leer " + accesor.getName(), e);
+        }
+    }
+
+    // Entre comillas solo si hace falta; las comillas internas se duplican
+    private static void escribirCampoCsv(String valor, Writer escritor) throws IOException {
+        boolean citar = false;
+        for (int i = 0; i < valor.length() && !citar; i++) {
+            char c = valor.charAt(i);
+            citar = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!citar) {
+            escritor.write(valor);
+            return;
+        }
+        escritor.write('"');
+        escritor.write(valor.replace("\"", "\"\""));
+        escritor.write('"');
+    }
+}
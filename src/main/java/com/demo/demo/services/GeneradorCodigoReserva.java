@@ -0,0 +1,78 @@
+package com.example.apartamentos.services;
+
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Genera códigos de reserva únicos sin consultar la base de datos.
+// Cada código empaqueta 50 bits: segundos desde EPOCA (34) + id de nodo (6) + secuencia (10),
+// y se escribe en base32 de Crockford (sin I, L, O ni U para que no se confundan al dictarlo).
+// Mientras cada nodo tenga un id distinto y su reloj no retroceda entre reinicios,
+// dos llamadas nunca producen el mismo código: nunca se usa un segundo al que el reloj no ha
+// llegado, así que tras un reinicio no hay segundos ya gastados por delante.
+@Component
+public class GeneradorCodigoReserva {
+
+    private static final long EPOCA = Instant.parse("2024-01-01T00:00:00Z").getEpochSecond();
+    private static final int BITS_NODO = 6;
+    private static final int BITS_SECUENCIA = 10;
+    private static final int MAX_NODO = (1 << BITS_NODO) - 1;
+    private static final int MAX_SECUENCIA = (1 << BITS_SECUENCIA) - 1;
+    private static final int LONGITUD = 10;
+    private static final char[] ALFABETO = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final long nodo;
+    private long ultimoSegundo = -1;
+    private int secuencia;
+
+    public GeneradorCodigoReserva(@Value("${reservaciones.codigo.nodo:0}") int nodo) {
+        if (nodo < 0 || nodo > MAX_NODO) {
+            throw new IllegalArgumentException("El id de nodo debe estar entre 0 y " + MAX_NODO);
+        }
+        this.nodo = nodo;
+    }
+
+    public String siguiente() {
+        long valor;
+        synchronized (this) {
+            long ahora = Instant.now().getEpochSecond() - EPOCA;
+            if (ahora > ultimoSegundo) {
+                ultimoSegundo = ahora;
+                secuencia = 0;
+            } else if (secuencia < MAX_SECUENCIA) {
+                // Mismo segundo (o reloj atrasado): se sigue la secuencia del último segundo usado
+                secuencia++;
+            } else {
+                // Secuencia agotada: se espera a que el reloj llegue al segundo siguiente. Tomar
+                // prestados segundos futuros repetiría códigos si el nodo se reinicia antes de que
+                // el reloj los alcance
+                ultimoSegundo = esperarSegundoPosterior(ultimoSegundo);
+                secuencia = 0;
+            }
+            valor = (ultimoSegundo << (BITS_NODO + BITS_SECUENCIA)) | (nodo << BITS_SECUENCIA) | secuencia;
+        }
+
+        char[] codigo = new char[LONGITUD];
+        for (int i = LONGITUD - 1; i >= 0; i--) {
+            codigo[i] = ALFABETO[(int) (valor & 31)];
+            valor >>>= 5;
+        }
+        return "RES-" + new String(codigo);
+    }
+
+    // Duerme (con el monitor tomado: las demás llamadas también deben esperar) hasta que el reloj
+    // pase de 'segundo'; como mucho un segundo si el reloj no está atrasado
+    private static long esperarSegundoPosterior(long segundo) {
+        long ahora;
+        while ((ahora = Instant.now().getEpochSecond() - EPOCA) <= segundo) {
+            try {
+                Thread.sleep(1000 - System.currentTimeMillis() % 1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrumpido esperando para generar el código de reserva", e);
+            }
+        }
+        return ahora;
+    }
+}
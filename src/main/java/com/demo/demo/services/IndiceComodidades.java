@@ -0,0 +1,147 @@
+package com.example.apartamentos.services;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.apartamentos.dto.TextoPropiedad;
+import com.example.apartamentos.models.Comodidad;
+import com.example.apartamentos.models.PropiedadModel;
+import com.example.apartamentos.repositories.IPropiedadRepository;
+
+// Máscara de comodidades de cada propiedad en un long[] indexado por id_propiedad, para que la
+// búsqueda descarte candidatos con un AND de bits antes de ir a la base de datos.
+// Es solo un prefiltro: la consulta vuelve a exigir las comodidades contra comodidades_mask, así que
+// una máscara con bits de más (propiedad desconocida, creada o editada en otro nodo) no produce
+// resultados falsos. Una máscara con bits de menos sí ocultaría la propiedad, por eso cada pocos
+// segundos se releen las propiedades con fecha_actualizacion reciente, sean de este nodo o de otro.
+@Component
+public class IndiceComodidades {
+
+    private static final long DESCONOCIDA = -1L;
+    // Ids mayores no se guardan (se tratan como desconocidos) para acotar la memoria: 16M ids = 128 MB
+    private static final int MAXIMO_ID = 1 << 24;
+
+    private final IPropiedadRepository propiedadRepository;
+    private final int tamanoLote;
+    private final long margenSegundos;
+
+    private volatile long[] mascaras = new long[0];
+    // Cambios recibidos mientras se recarga; se aplican al arreglo nuevo antes de publicarlo
+    private Map<Long, Long> cambiosPendientes;
+    // Desde qué fecha_actualizacion se releen cambios; null hasta la primera carga completa
+    private volatile LocalDateTime revisarDesde;
+
+    public IndiceComodidades(IPropiedadRepository propiedadRepository,
+                             @Value("${propiedades.comodidades.lote:500}") int tamanoLote,
+                             @Value("${propiedades.comodidades.margen-segundos:60}") long margenSegundos) {
+        this.propiedadRepository = propiedadRepository;
+        this.tamanoLote = tamanoLote;
+        this.margenSegundos = margenSegundos;
+    }
+
+    public boolean tieneTodas(long idPropiedad, long requeridas) {
+        long[] actuales = mascaras;
+        return idPropiedad >= actuales.length || (actuales[(int) idPropiedad] & requeridas) == requeridas;
+    }
+
+    public void actualizar(PropiedadModel propiedad) {
+        registrar(propiedad.getId_propiedad(), Comodidad.mascara(propiedad.getComodidades()));
+    }
+
+    public void quitar(Long idPropiedad) {
+        registrar(idPropiedad, 0L);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${propiedades.comodidades.recargar-ms:3600000}",
+               initialDelayString = "${propiedades.comodidades.recargar-ms:3600000}")
+    public void recargar() {
+        synchronized (this) {
+            cambiosPendientes = new HashMap<>();
+        }
+        LocalDateTime inicio = LocalDateTime.now();
+
+        long[] nuevas = new long[0];
+        try {
+            long cursor = 0;
+            List<TextoPropiedad> lote;
+            do {
+                lote = propiedadRepository.findTextoPageAfter(cursor, PageRequest.of(0, tamanoLote));
+                for (TextoPropiedad texto : lote) {
+                    nuevas = asignar(nuevas, texto.idPropiedad(), Comodidad.mascara(texto.comodidades()));
+                    cursor = texto.idPropiedad();
+                }
+            } while (lote.size() == tamanoLote);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                cambiosPendientes = null;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            for (Map.Entry<Long, Long> cambio : cambiosPendientes.entrySet()) {
+                nuevas = asignar(nuevas, cambio.getKey(), cambio.getValue());
+            }
+            cambiosPendientes = null;
+            mascaras = nuevas;
+        }
+        revisarDesde = inicio.minusSeconds(margenSegundos);
+    }
+
+    // Relee las propiedades cambiadas desde la última revisión. El margen cubre relojes desfasados
+    // entre nodos y transacciones que confirman después de haber fijado fecha_actualizacion; releer
+    // una misma propiedad varias veces no cambia el resultado
+    @Scheduled(fixedDelayString = "${propiedades.comodidades.refrescar-ms:5000}",
+               initialDelayString = "${propiedades.comodidades.refrescar-ms:5000}")
+    public void refrescar() {
+        LocalDateTime desde = revisarDesde;
+        if (desde == null) {
+            return;
+        }
+        LocalDateTime inicio = LocalDateTime.now();
+        long cursor = 0;
+        List<TextoPropiedad> lote;
+        do {
+            lote = propiedadRepository.findTextoActualizadoDesde(desde, cursor, PageRequest.of(0, tamanoLote));
+            for (TextoPropiedad texto : lote) {
+                registrar(texto.idPropiedad(), Comodidad.mascara(texto.comodidades()));
+                cursor = texto.idPropiedad();
+            }
+        } while (lote.size() == tamanoLote);
+        revisarDesde = inicio.minusSeconds(margenSegundos);
+    }
+
+    // Se escribe en el mismo arreglo: una búsqueda concurrente ve el valor anterior o el nuevo
+    private synchronized void registrar(Long idPropiedad, long mascara) {
+        mascaras = asignar(mascaras, idPropiedad, mascara);
+        if (cambiosPendientes != null) {
+            cambiosPendientes.put(idPropiedad, mascara);
+        }
+    }
+
+    // Guarda la máscara creciendo el arreglo si hace falta (los huecos quedan como desconocidos)
+    private static long[] asignar(long[] arreglo, long idPropiedad, long mascara) {
+        if (idPropiedad < 0 || idPropiedad >= MAXIMO_ID) {
+            return arreglo;
+        }
+        int indice = (int) idPropiedad;
+        if (indice >= arreglo.length) {
+            int longitudAnterior = arreglo.length;
+            arreglo = Arrays.copyOf(arreglo, Math.min(MAXIMO_ID, Math.max(indice + 1, longitudAnterior * 2)));
+            Arrays.fill(arreglo, longitudAnterior, arreglo.length, DESCONOCIDA);
+        }
+        arreglo[indice] = mascara;
+        return arreglo;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.apartamentos.services;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.apartamentos.dto.IntervaloReservacion;
+import com.example.apartamentos.events.ReservacionEvento;
+import com.example.apartamentos.events.SuscriptorEventosReservacion;
+import com.example.apartamentos.models.ReservacionModel.EstadoReservacion;
+import com.example.apartamentos.repositories.IReservacionRepository;
+
+// Índice en memoria de días ocupados por propiedad (reservaciones pendientes o confirmadas).
+// Cada propiedad se carga desde la base de datos la primera vez que se consulta y se
+// vuelve a cargar al expirar el TTL, para recoger cambios hechos desde otros nodos.
+// Los cambios de este nodo llegan como eventos de reservación después de cada commit, en el
+// mismo hilo que confirmó (suscriptor síncrono): al responder, el índice ya refleja el cambio.
+@Component
+public class IndiceOcupacion implements SuscriptorEventosReservacion {
+
+    private final IReservacionRepository reservacionRepository;
+    private final long ttlMillis;
+    private final ConcurrentHashMap<Long, OcupacionPropiedad> ocupaciones = new ConcurrentHashMap<>();
+
+    public IndiceOcupacion(IReservacionRepository reservacionRepository,
+                           @Value("${reservaciones.indice.ttl-segundos:60}") long ttlSegundos) {
+        this.reservacionRepository = reservacionRepository;
+        this.ttlMillis = ttlSegundos * 1000;
+    }
+
+    // Solo las reservaciones pendientes o confirmadas bloquean fechas
+    public static boolean bloqueaFechas(EstadoReservacion estado) {
+        return estado == EstadoReservacion.pendiente || estado == EstadoReservacion.confirmada;
+    }
+
+    // true si algún día del rango [fechaEntrada, fechaSalida] está ocupado
+    // (mismo criterio inclusivo que existsOverlappingReservation)
+    public boolean estaOcupado(Long idPropiedad, LocalDate fechaEntrada, LocalDate fechaSalida) {
+        return obtener(idPropiedad).estaOcupado(fechaEntrada.toEpochDay(), fechaSalida.toEpochDay());
+    }
+
+    @Override
+    public boolean sincrono() {
+        return true;
+    }
+
+    @Override
+    public void alPublicarse(ReservacionEvento evento) {
+        if (evento instanceof ReservacionEvento.ReservationCreated creada) {
+            if (bloqueaFechas(creada.estado())) {
+                registrar(creada.idPropiedad(), creada.idReservacion(), creada.fechaEntrada(), creada.fechaSalida());
+            }
+        } else if (evento instanceof ReservacionEvento.DatesChanged cambio) {
+            registrar(cambio.idPropiedad(), cambio.idReservacion(), cambio.fechaEntrada(), cambio.fechaSalida());
+        } else if (evento instanceof ReservacionEvento.Cancelled
+                || evento instanceof ReservacionEvento.Finalized) {
+            quitar(evento.idPropiedad(), evento.idReservacion());
+        }
+    }
+
+    // Agrega o reemplaza las fechas de una reservación. Si la propiedad no está cargada
+    // no hay nada que mantener: se leerá completa en la siguiente consulta.
+    public void registrar(Long idPropiedad, Long idReservacion, LocalDate fechaEntrada, LocalDate fechaSalida) {
+        ocupaciones.computeIfPresent(idPropiedad, (id, ocupacion) -> {
+            ocupacion.agregar(idReservacion, fechaEntrada.toEpochDay(), fechaSalida.toEpochDay());
+            return ocupacion;
+        });
+    }
+
+    // Libera las fechas de una reservación (cancelada, finalizada, eliminada...)
+    public void quitar(Long idPropiedad, Long idReservacion) {
+        ocupaciones.computeIfPresent(idPropiedad, (id, ocupacion) -> {
+            ocupacion.quitar(idReservacion);
+            return ocupacion;
+        });
+    }
+
+    // Descarta lo que se sabe de una propiedad; se recarga en la siguiente consulta
+    public void invalidar(Long idPropiedad) {
+        ocupaciones.remove(idPropiedad);
+    }
+
+    public void invalidarTodo() {
+        ocupaciones.clear();
+    }
+
+    private OcupacionPropiedad obtener(Long idPropiedad) {
+        long ahora = System.currentTimeMillis();
+        OcupacionPropiedad ocupacion = ocupaciones.get(idPropiedad);
+        if (ocupacion != null && ocupacion.expiraEn > ahora) {
+            return ocupacion;
+        }
+        // compute bloquea registrar/quitar de esta propiedad mientras se carga,
+        // así ningún cambio queda pisado por una lectura anterior a él
+        return ocupaciones.compute(idPropiedad, (id, actual) ->
+            actual != null && actual.expiraEn > ahora ? actual : cargar(id, ahora));
+    }
+
+    private OcupacionPropiedad cargar(Long idPropiedad, long ahora) {
+        List<IntervaloReservacion> intervalos = reservacionRepository.findActiveIntervalsByPropiedad(idPropiedad);
+        OcupacionPropiedad ocupacion = new OcupacionPropiedad(ahora + ttlMillis);
+        for (IntervaloReservacion intervalo : intervalos) {
+            ocupacion.agregar(intervalo.idReservacion(),
+                intervalo.fechaEntrada().toEpochDay(), intervalo.fechaSalida().toEpochDay());
+        }
+        return ocupacion;
+    }
+
+    // Bitmap de días de una propiedad: el bit i representa el día (base + i) en epoch days.
+    // Se guardan también los intervalos por reservación para poder liberar fechas
+    // sin borrar días que otra reservación sigue ocupando.
+    private static final class OcupacionPropiedad {
+
+        private final long expiraEn;
+        private final Map<Long, long[]> intervalos = new HashMap<>();
+        private long base = Long.MAX_VALUE;
+        private BitSet dias = new BitSet();
+
+        OcupacionPropiedad(long expiraEn) {
+            this.expiraEn = expiraEn;
+        }
+
+        synchronized void agregar(Long idReservacion, long desde, long hasta) {
+            long[] anterior = intervalos.put(idReservacion, new long[] { desde, hasta });
+            if (anterior != null || desde < base) {
+                reconstruir();
+            } else {
+                marcar(desde, hasta);
+            }
+        }
+
+        synchronized void quitar(Long idReservacion) {
+            if (intervalos.remove(idReservacion) != null) {
+                reconstruir();
+            }
+        }
+
+        synchronized boolean estaOcupado(long desde, long hasta) {
+            long inicio = Math.max(desde, base);
+            if (hasta < inicio) {
+                return false;
+            }
+            int siguiente = dias.nextSetBit((int) (inicio - base));
+            return siguiente >= 0 && siguiente <= hasta - base;
+        }
+
+        private void reconstruir() {
+            dias = new BitSet();
+            base = Long.MAX_VALUE;
+            for (long[] intervalo : intervalos.values()) {
+                base = Math.min(base, intervalo[0]);
+            }
+            for (long[] intervalo : intervalos.values()) {
+                marcar(intervalo[0], intervalo[1]);
+            }
+        }
+
+        private void marcar(long desde, long hasta) {
+            if (hasta < desde) {
+                return;
+            }
+            dias.set((int) (desde - base), (int) (hasta - base) + 1);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.apartamentos.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.apartamentos.dto.TextoPropiedad;
+import com.example.apartamentos.models.PropiedadModel;
+import com.example.apartamentos.repositories.IPropiedadRepository;
+import com.example.apartamentos.util.TextoEspanol;
+
+// Índice invertido en memoria sobre titulo, comodidades y descripcion de las propiedades,
+// con ranking BM25. Se construye al arrancar, se mantiene al guardar o borrar propiedades en
+// este nodo y se reconstruye completo cada cierto tiempo para recoger cambios de otros nodos.
+@Component
+public class IndiceTexto {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceTexto.class);
+
+    // Un término en el título cuenta como tres en la descripción
+    private static final int PESO_TITULO = 3;
+    private static final int PESO_COMODIDADES = 2;
+    private static final int PESO_DESCRIPCION = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final IPropiedadRepository propiedadRepository;
+    private final int tamanoLote;
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+
+    private Indice indice = new Indice();
+    // Cambios recibidos mientras se reconstruye; se aplican al índice nuevo antes de publicarlo
+    private Map<Long, TextoPropiedad> cambiosPendientes;
+
+    public IndiceTexto(IPropiedadRepository propiedadRepository,
+                       @Value("${propiedades.texto.lote:500}") int tamanoLote) {
+        this.propiedadRepository = propiedadRepository;
+        this.tamanoLote = tamanoLote;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${propiedades.texto.reconstruir-ms:3600000}",
+               initialDelayString = "${propiedades.texto.reconstruir-ms:3600000}")
+    public void reconstruir() {
+        candado.writeLock().lock();
+        try {
+            cambiosPendientes = new HashMap<>();
+        } finally {
+            candado.writeLock().unlock();
+        }
+
+        Indice nuevo = new Indice();
+        try {
+            long cursor = 0;
+            List<TextoPropiedad> lote;
+            do {
+                lote = propiedadRepository.findTextoPageAfter(cursor, PageRequest.of(0, tamanoLote));
+                for (TextoPropiedad texto : lote) {
+                    nuevo.agregar(texto.idPropiedad(), frecuencias(texto));
+                    cursor = texto.idPropiedad();
+                }
+            } while (lote.size() == tamanoLote);
+        } catch (RuntimeException e) {
+            // Se sigue sirviendo el índice anterior
+            candado.writeLock().lock();
+            try {
+                cambiosPendientes = null;
+            } finally {
+                candado.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        candado.writeLock().lock();
+        try {
+            cambiosPendientes.forEach((id, texto) -> {
+                nuevo.quitar(id);
+                if (texto.titulo() != null) {
+                    nuevo.agregar(id, frecuencias(texto));
+                }
+            });
+            cambiosPendientes = null;
+            indice = nuevo;
+        } finally {
+            candado.writeLock().unlock();
+        }
+        log.info("Índice de texto reconstruido: {} propiedades, {} términos", nuevo.documentos.size(), nuevo.postings.size());
+    }
+
+    public void indexar(PropiedadModel propiedad) {
+        aplicar(new TextoPropiedad(propiedad.getId_propiedad(), propiedad.getTitulo(),
+            propiedad.getDescripcion(), propiedad.getComodidades()));
+    }
+
+    public void quitar(Long idPropiedad) {
+        // Un texto sin título marca el borrado
+        aplicar(new TextoPropiedad(idPropiedad, null, null, null));
+    }
+
+    private void aplicar(TextoPropiedad texto) {
+        candado.writeLock().lock();
+        try {
+            indice.quitar(texto.idPropiedad());
+            if (texto.titulo() != null) {
+                indice.agregar(texto.idPropiedad(), frecuencias(texto));
+            }
+            if (cambiosPendientes != null) {
+                cambiosPendientes.put(texto.idPropiedad(), texto);
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    // Ids de las propiedades admitidas que contienen algún término, de mayor a menor puntaje.
+    // El filtro se aplica antes de recortar a 'maximo', para no gastar el cupo en descartes.
+    public LinkedHashMap<Long, Double> buscar(String consulta, int maximo, LongPredicate admitida) {
+        Set<String> terminos = new LinkedHashSet<>(TextoEspanol.terminos(consulta));
+        Map<Long, Double> puntajes = new HashMap<>();
+        candado.readLock().lock();
+        try {
+            indice.puntuar(terminos, puntajes);
+        } finally {
+            candado.readLock().unlock();
+        }
+
+        puntajes.keySet().removeIf(id -> !admitida.test(id));
+        List<Map.Entry<Long, Double>> ordenados = new ArrayList<>(puntajes.entrySet());
+        ordenados.sort(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        LinkedHashMap<Long, Double> resultado = new LinkedHashMap<>();
+        for (Map.Entry<Long, Double> entrada : ordenados.subList(0, Math.min(maximo, ordenados.size()))) {
+            resultado.put(entrada.getKey(), entrada.getValue());
+        }
+        return resultado;
+    }
+
+    private static Map<String, Integer> frecuencias(TextoPropiedad texto) {
+        Map<String, Integer> frecuencias = new HashMap<>();
+        contar(texto.titulo(), PESO_TITULO, frecuencias);
+        contar(texto.comodidades(), PESO_COMODIDADES, frecuencias);
+        contar(texto.descripcion(), PESO_DESCRIPCION, frecuencias);
+        return frecuencias;
+    }
+
+    private static void contar(String campo, int peso, Map<String, Integer> frecuencias) {
+        for (String termino : TextoEspanol.terminos(campo)) {
+            frecuencias.merge(termino, peso, Integer::sum);
+        }
+    }
+
+    // Término -> (propiedad -> frecuencia ponderada), más lo necesario para normalizar por longitud
+    private static final class Indice {
+
+        private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+        private final Map<Long, Map<String, Integer>> documentos = new HashMap<>();
+        private final Map<Long, Integer> longitudes = new HashMap<>();
+        private long longitudTotal;
+
+        void agregar(Long idPropiedad, Map<String, Integer> frecuencias) {
+            int longitud = 0;
+            for (Map.Entry<String, Integer> entrada : frecuencias.entrySet()) {
+                postings.computeIfAbsent(entrada.getKey(), t -> new HashMap<>()).put(idPropiedad, entrada.getValue());
+                longitud += entrada.getValue();
+            }
+            documentos.put(idPropiedad, frecuencias);
+            longitudes.put(idPropiedad, longitud);
+            longitudTotal += longitud;
+        }
+
+        void quitar(Long idPropiedad) {
+            Map<String, Integer> frecuencias = documentos.remove(idPropiedad);
+            if (frecuencias == null) {
+                return;
+            }
+            for (String termino : frecuencias.keySet()) {
+                Map<Long, Integer> lista = postings.get(termino);
+                lista.remove(idPropiedad);
+                if (lista.isEmpty()) {
+                    postings.remove(termino);
+                }
+            }
+            longitudTotal -= longitudes.remove(idPropiedad);
+        }
+
+        void puntuar(Set<String> terminos, Map<Long, Double> puntajes) {
+            int total = documentos.size();
+            if (total == 0) {
+                return;
+            }
+            double longitudPromedio = (double) longitudTotal / total;
+            for (String termino : terminos) {
+                Map<Long, Integer> lista = postings.get(termino);
+                if (lista == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (total - lista.size() + 0.5) / (lista.size() + 0.5));
+                for (Map.Entry<Long, Integer> entrada : lista.entrySet()) {
+                    double tf = entrada.getValue();
+                    double normalizacion = K1 * (1 - B + B * longitudes.get(entrada.getKey()) / longitudPromedio);
+                    puntajes.merge(entrada.getKey(), idf * tf * (K1 + 1) / (tf + normalizacion), Double::sum);
+                }
+            }
+        }
+    }
+}
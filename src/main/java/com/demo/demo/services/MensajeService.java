@@ -1,9 +1,16 @@
 package com.example.apartamentos.services;
 
 
+import com.example.apartamentos.dto.EstadoMensaje;
+import com.example.apartamentos.dto.MensajeConversacion;
+import com.example.apartamentos.dto.MensajeResumen;
+import com.example.apartamentos.dto.PaginaCursor;
 import com.example.apartamentos.models.MensajeModel;
 import com.example.apartamentos.repositories.IMensajeRepository;
+import com.example.apartamentos.repositories.IMensajesNoLeidosRepository;
+import com.example.apartamentos.util.TrasCommit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,24 +19,145 @@ import java.util.Optional;
 public class MensajeService {
 
     private final IMensajeRepository mensajeRepository;
+    private final IMensajesNoLeidosRepository noLeidosRepository;
+    private final Paginacion paginacion;
+    private final NotificacionesTiempoReal notificaciones;
 
-    public MensajeService(IMensajeRepository mensajeRepository) {
+    public MensajeService(IMensajeRepository mensajeRepository, IMensajesNoLeidosRepository noLeidosRepository,
+                          Paginacion paginacion, NotificacionesTiempoReal notificaciones) {
         this.mensajeRepository = mensajeRepository;
+        this.noLeidosRepository = noLeidosRepository;
+        this.paginacion = paginacion;
+        this.notificaciones = notificaciones;
     }
 
-    public List<MensajeModel> getAllMensajes() {
-        return mensajeRepository.findAll();
+    public PaginaCursor<MensajeConversacion> getAllMensajes(String cursor, Integer limite) {
+        int tamano = paginacion.limite(limite);
+        List<MensajeConversacion> filas = mensajeRepository.findPageAfter(PaginaCursor.decodificarEntero(cursor), paginacion.unaPagina(tamano));
+        return PaginaCursor.de(filas, tamano, MensajeConversacion::idMensaje);
     }
 
     public Optional<MensajeModel> getMensajeById(Integer id) {
         return mensajeRepository.findById(id);
     }
 
+    // Mensajes recibidos por el cliente, del más reciente al más antiguo
+    public PaginaCursor<MensajeResumen> getBandeja(Long idCliente, String cursor, Integer limite) {
+        int tamano = paginacion.limite(limite);
+        PaginaCursor.ClaveFecha clave = PaginaCursor.decodificarFecha(cursor);
+        List<MensajeResumen> filas = clave == null
+            ? mensajeRepository.findBandeja(idCliente, paginacion.unaPagina(tamano))
+            : mensajeRepository.findBandejaAntesDe(idCliente, clave.fecha(), clave.idEntero(),
+                paginacion.unaPagina(tamano));
+        return PaginaCursor.dePorFecha(filas, tamano, MensajeResumen::fechaEnvio, MensajeResumen::idMensaje);
+    }
+
+    // Mensajes entre dos clientes en ambos sentidos, del más reciente al más antiguo
+    public PaginaCursor<MensajeConversacion> getConversacion(Long idClienteA, Long idClienteB, String cursor,
+                                                             Integer limite) {
+        int tamano = paginacion.limite(limite);
+        Long menor = Math.min(idClienteA, idClienteB);
+        Long mayor = Math.max(idClienteA, idClienteB);
+        PaginaCursor.ClaveFecha clave = PaginaCursor.decodificarFecha(cursor);
+        List<MensajeConversacion> filas = clave == null
+            ? mensajeRepository.findConversacion(menor, mayor, paginacion.unaPagina(tamano))
+            : mensajeRepository.findConversacionAntesDe(menor, mayor, clave.fecha(), clave.idEntero(),
+                paginacion.unaPagina(tamano));
+        return PaginaCursor.dePorFecha(filas, tamano, MensajeConversacion::fechaEnvio, MensajeConversacion::idMensaje);
+    }
+
+    public PaginaCursor<MensajeConversacion> getConversacionDeReservacion(Long idReservacion, String cursor,
+                                                                          Integer limite) {
+        int tamano = paginacion.limite(limite);
+        PaginaCursor.ClaveFecha clave = PaginaCursor.decodificarFecha(cursor);
+        List<MensajeConversacion> filas = clave == null
+            ? mensajeRepository.findPorReservacion(idReservacion, paginacion.unaPagina(tamano))
+            : mensajeRepository.findPorReservacionAntesDe(idReservacion, clave.fecha(), clave.idEntero(),
+                paginacion.unaPagina(tamano));
+        return PaginaCursor.dePorFecha(filas, tamano, MensajeConversacion::fechaEnvio, MensajeConversacion::idMensaje);
+    }
+
+    public int getNoLeidos(Long idCliente) {
+        return noLeidosRepository.findNoLeidos(idCliente).orElse(0);
+    }
+
+    // Al editar, el cambio de leído se aplica con un UPDATE condicional y el contador se ajusta
+    // solo si esa sentencia cambió la fila: una lectura simultánea (marcarLeido) no descuenta dos veces
+    @Transactional
     public MensajeModel saveMensaje(MensajeModel mensaje) {
-        return mensajeRepository.save(mensaje);
+        Integer id = mensaje.getIdMensaje();
+        boolean leido = Boolean.TRUE.equals(mensaje.getLeido());
+        int cambio = id == null ? 0
+            : leido ? mensajeRepository.marcarLeido(id) : mensajeRepository.marcarNoLeido(id);
+        Optional<EstadoMensaje> anterior = id == null ? Optional.empty() : mensajeRepository.findEstado(id);
+        MensajeModel guardado = mensajeRepository.saveAndFlush(mensaje);
+        Long destinatario = guardado.getDestinatario().getId();
+
+        if (anterior.isEmpty()) {
+            if (!leido) {
+                noLeidosRepository.sumar(destinatario, 1);
+            }
+            MensajeConversacion aviso = new MensajeConversacion(guardado.getIdMensaje(),
+                guardado.getRemitente().getId(), destinatario,
+                guardado.getReservacion() != null ? guardado.getReservacion().getId() : null,
+                guardado.getAsunto(), guardado.getExtracto(), guardado.getLeido(), guardado.getFechaEnvio());
+            TrasCommit.ejecutar(() -> notificaciones.mensajeNuevo(aviso));
+            return guardado;
+        }
+
+        Long destinatarioAnterior = anterior.get().idDestinatario();
+        if (cambio == 1) {
+            noLeidosRepository.sumar(destinatarioAnterior, leido ? -1 : 1);
+        }
+        // Si cambió el destinatario, el mensaje sin leer pasa de un contador al otro
+        if (!leido && !destinatario.equals(destinatarioAnterior)) {
+            noLeidosRepository.sumar(destinatarioAnterior, -1);
+            noLeidosRepository.sumar(destinatario, 1);
+        }
+        return guardado;
+    }
+
+    @Transactional
+    public void marcarLeido(Integer id) {
+        EstadoMensaje estado = mensajeRepository.findEstado(id)
+            .orElseThrow(() -> new IllegalArgumentException("Mensaje no encontrado con ID: " + id));
+        if (mensajeRepository.marcarLeido(id) == 1) {
+            noLeidosRepository.sumar(estado.idDestinatario(), -1);
+        }
+    }
+
+    // Marca como leídos los mensajes que el lector recibió del otro cliente (hasta el id dado, o
+    // todos) y descuenta del contador en la misma transacción exactamente los que cambiaron
+    @Transactional
+    public int marcarConversacionLeida(Long lector, Long otro, Integer hasta) {
+        int marcados = mensajeRepository.marcarConversacionLeida(Math.min(lector, otro), Math.max(lector, otro),
+            lector, hasta != null ? hasta : Integer.MAX_VALUE);
+        if (marcados > 0) {
+            noLeidosRepository.sumar(lector, -marcados);
+        }
+        return marcados;
+    }
+
+    @Transactional
+    public int marcarReservacionLeida(Long lector, Long idReservacion, Integer hasta) {
+        int marcados = mensajeRepository.marcarReservacionLeida(idReservacion, lector,
+            hasta != null ? hasta : Integer.MAX_VALUE);
+        if (marcados > 0) {
+            noLeidosRepository.sumar(lector, -marcados);
+        }
+        return marcados;
     }
 
+    @Transactional
     public void deleteMensaje(Integer id) {
-        mensajeRepository.deleteById(id);
+        // Del estado leído solo se usa el destinatario: el descuento lo decide el DELETE condicional,
+        // igual que marcarLeido, para no descontar dos veces si el mensaje se lee mientras se borra
+        Optional<EstadoMensaje> anterior = mensajeRepository.findEstado(id);
+        int noLeidos = mensajeRepository.deleteNoLeido(id);
+        if (noLeidos == 0) {
+            mensajeRepository.deleteById(id);
+            return;
+        }
+        anterior.ifPresent(a -> noLeidosRepository.sumar(a.idDestinatario(), -noLeidos));
     }
 }
@@ -0,0 +1,291 @@
+package com.example.apartamentos.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.apartamentos.dto.MensajeConversacion;
+import com.example.apartamentos.events.ReservacionEvento;
+import com.example.apartamentos.events.SuscriptorEventosReservacion;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+// Avisos en tiempo real por cliente (Server-Sent Events): mensajes nuevos y cambios de sus
+// reservaciones en cuanto se confirman, para no sondear /mensajes y /reservaciones/cliente/{id}.
+// - Publicar no bloquea: el evento se serializa una vez y se encola en cada conexión del cliente.
+//   Hilos bajo demanda vacían las colas hacia la red, a lo más uno por conexión a la vez.
+// - Cada escritura tiene un límite de tiempo: si el envío en curso lo excede, la conexión se cierra
+//   y ese navegador deja de retener su hilo.
+// - La cola de cada conexión es acotada; si el navegador no la lee y se llena, la conexión se
+//   cierra (el cliente se reconecta y recarga lo que le falte) en lugar de acumular memoria.
+// - El latido mantiene abiertas las conexiones ociosas a través de proxies y descubre las muertas.
+@Component
+public class NotificacionesTiempoReal implements SuscriptorEventosReservacion {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificacionesTiempoReal.class);
+
+    private final ObjectMapper objectMapper;
+    private final int capacidadCola;
+    private final int maximoPorCliente;
+    private final long duracionMs;
+    private final long limiteEnvioNanos;
+    private final ExecutorService envio;
+
+    // Conexiones abiertas por cliente. Cada lista es inmutable y se reemplaza al conectar o
+    // desconectar, así que repartir un evento solo lee, sin candados
+    private final ConcurrentHashMap<Long, List<Conexion>> conexiones = new ConcurrentHashMap<>();
+    private final AtomicLong secuencia = new AtomicLong();
+
+    private final AtomicLong enviados = new AtomicLong();
+    private final AtomicLong cerradasPorLentitud = new AtomicLong();
+
+    public NotificacionesTiempoReal(ObjectMapper objectMapper,
+                                    @Value("${notificaciones.buffer-eventos:100}") int capacidadCola,
+                                    @Value("${notificaciones.conexiones-por-cliente:5}") int maximoPorCliente,
+                                    @Value("${notificaciones.duracion-ms:1800000}") long duracionMs,
+                                    @Value("${notificaciones.limite-envio-ms:10000}") long limiteEnvioMs) {
+        if (capacidadCola < 1 || maximoPorCliente < 1) {
+            throw new IllegalArgumentException("El buffer y las conexiones por cliente deben ser al menos 1");
+        }
+        if (limiteEnvioMs < 1) {
+            throw new IllegalArgumentException("El límite de envío debe ser de al menos 1 ms");
+        }
+        this.objectMapper = objectMapper;
+        this.capacidadCola = capacidadCola;
+        this.maximoPorCliente = maximoPorCliente;
+        this.duracionMs = duracionMs;
+        this.limiteEnvioNanos = TimeUnit.MILLISECONDS.toNanos(limiteEnvioMs);
+        // Sin tamaño fijo: un envío atascado solo retiene su propio hilo (hasta que revisarEnvios
+        // cierra la conexión) y no hace esperar a las demás conexiones
+        AtomicInteger hilos = new AtomicInteger();
+        this.envio = Executors.newCachedThreadPool(tarea -> {
+            Thread hilo = new Thread(tarea, "notificaciones-" + hilos.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    // Abre el canal del cliente; si ya tiene el máximo de conexiones se cierra la más antigua
+    public SseEmitter suscribir(Long idCliente) {
+        SseEmitter emitter = new SseEmitter(duracionMs);
+        Conexion conexion = new Conexion(idCliente, emitter);
+        emitter.onCompletion(() -> quitar(conexion));
+        emitter.onTimeout(conexion::cerrar);
+        emitter.onError(error -> quitar(conexion));
+
+        List<Conexion> sobrantes = new ArrayList<>();
+        conexiones.compute(idCliente, (id, actuales) -> {
+            List<Conexion> nuevas = new ArrayList<>(actuales == null ? List.of() : actuales);
+            nuevas.add(conexion);
+            while (nuevas.size() > maximoPorCliente) {
+                sobrantes.add(nuevas.remove(0));
+            }
+            return List.copyOf(nuevas);
+        });
+        sobrantes.forEach(Conexion::cerrar);
+
+        // Primer evento: el navegador recibe los encabezados y sabe que el canal está abierto
+        conexion.encolar(SseEmitter.event().name("conectado").data(idCliente).build());
+        return emitter;
+    }
+
+    public void mensajeNuevo(MensajeConversacion mensaje) {
+        enviar(mensaje.idDestinatario(), "mensaje", mensaje);
+    }
+
+    // Llega desde el hilo del despachador: solo encola, para no retrasar a los demás suscriptores
+    @Override
+    public void alPublicarse(ReservacionEvento evento) {
+        if (evento.idCliente() != null) {
+            enviar(evento.idCliente(), "reservacion",
+                Map.of("tipo", evento.getClass().getSimpleName(), "reservacion", evento));
+        }
+    }
+
+    private void enviar(Long idCliente, String nombre, Object datos) {
+        List<Conexion> delCliente = conexiones.get(idCliente);
+        if (delCliente == null) {
+            return;
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(datos);
+        } catch (JsonProcessingException e) {
+            log.error("No se pudo serializar la notificación {} para el cliente {}", nombre, idCliente, e);
+            return;
+        }
+        Set<DataWithMediaType> evento = SseEmitter.event()
+            .id(Long.toString(secuencia.incrementAndGet()))
+            .name(nombre)
+            .data(json)
+            .build();
+        for (Conexion conexion : delCliente) {
+            conexion.encolar(evento);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${notificaciones.latido-ms:15000}")
+    public void latido() {
+        Set<DataWithMediaType> latido = SseEmitter.event().comment("latido").build();
+        conexiones.values().forEach(delCliente -> delCliente.forEach(conexion -> conexion.encolar(latido)));
+    }
+
+    // Cierra las conexiones cuyo envío en curso ya pasó del límite
+    @Scheduled(fixedRateString = "${notificaciones.revision-envios-ms:1000}")
+    public void revisarEnvios() {
+        long ahora = System.nanoTime();
+        conexiones.values().forEach(delCliente -> delCliente.forEach(conexion -> conexion.vencerSiTarda(ahora)));
+    }
+
+    private void quitar(Conexion conexion) {
+        conexiones.computeIfPresent(conexion.idCliente, (id, actuales) -> {
+            if (!actuales.contains(conexion)) {
+                return actuales;
+            }
+            List<Conexion> restantes = new ArrayList<>(actuales);
+            restantes.remove(conexion);
+            return restantes.isEmpty() ? null : List.copyOf(restantes);
+        });
+    }
+
+    public Map<String, Object> estadisticas() {
+        return Map.of(
+            "clientes", conexiones.size(),
+            "conexiones", conexiones.values().stream().mapToInt(List::size).sum(),
+            "eventosEnviados", enviados.get(),
+            "cerradasPorLentitud", cerradasPorLentitud.get()
+        );
+    }
+
+    @PreDestroy
+    public void detener() {
+        envio.shutdown();
+        conexiones.values().forEach(delCliente -> delCliente.forEach(Conexion::cerrar));
+    }
+
+    private final class Conexion {
+
+        private final Long idCliente;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<Set<DataWithMediaType>> cola = new ArrayBlockingQueue<>(capacidadCola);
+        // Hay una tarea vaciando la cola (a lo más una por conexión, así los eventos salen en orden)
+        private final AtomicBoolean programada = new AtomicBoolean();
+        private volatile boolean cerrada;
+        // Hilo que está escribiendo a la red y desde cuándo (nanoTime); null sin envío en curso
+        private Thread hiloEnvio;
+        private long envioDesde;
+
+        Conexion(Long idCliente, SseEmitter emitter) {
+            this.idCliente = idCliente;
+            this.emitter = emitter;
+        }
+
+        void encolar(Set<DataWithMediaType> evento) {
+            if (cerrada) {
+                return;
+            }
+            if (!cola.offer(evento)) {
+                cerradasPorLentitud.incrementAndGet();
+                cerrar();
+                return;
+            }
+            programar();
+        }
+
+        private void programar() {
+            if (programada.compareAndSet(false, true)) {
+                try {
+                    envio.execute(this::vaciar);
+                } catch (RejectedExecutionException e) {
+                    // La aplicación se está deteniendo
+                    cerrar();
+                }
+            }
+        }
+
+        private void vaciar() {
+            try {
+                Set<DataWithMediaType> evento;
+                while (!cerrada && (evento = cola.poll()) != null) {
+                    enviarUno(evento);
+                    enviados.incrementAndGet();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // El cliente se desconectó
+                cerrar();
+            } finally {
+                programada.set(false);
+            }
+            // Un evento encolado mientras terminaba el ciclo no debe esperar al siguiente
+            if (!cerrada && !cola.isEmpty()) {
+                programar();
+            }
+        }
+
+        private void enviarUno(Set<DataWithMediaType> evento) throws IOException {
+            synchronized (this) {
+                hiloEnvio = Thread.currentThread();
+                envioDesde = System.nanoTime();
+            }
+            try {
+                emitter.send(evento);
+            } finally {
+                synchronized (this) {
+                    hiloEnvio = null;
+                    // Una interrupción de vencerSiTarda no debe alcanzar a la siguiente tarea del hilo
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        // El envío en curso se interrumpe bajo el mismo monitor con que enviarUno lo termina, así
+        // que nunca se interrumpe al hilo cuando ya trabaja en otra conexión
+        void vencerSiTarda(long ahora) {
+            synchronized (this) {
+                if (hiloEnvio == null || ahora - envioDesde < limiteEnvioNanos) {
+                    return;
+                }
+                hiloEnvio.interrupt();
+            }
+            cerradasPorLentitud.incrementAndGet();
+            cerrar();
+        }
+
+        void cerrar() {
+            if (cerrada) {
+                return;
+            }
+            cerrada = true;
+            cola.clear();
+            quitar(this);
+            // complete() espera el candado de escritura del emitter; con un envío atascado, quien
+            // cierra (el despachador de eventos, el latido) no debe quedarse esperando con él
+            try {
+                envio.execute(emitter::complete);
+            } catch (RejectedExecutionException e) {
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.apartamentos.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+// Tamaños de página configurables para los listados paginados por cursor
+@Component
+public class Paginacion {
+
+    private final int tamanoDefecto;
+    private final int tamanoMaximo;
+
+    public Paginacion(@Value("${paginacion.tamano-defecto:50}") int tamanoDefecto,
+                      @Value("${paginacion.tamano-maximo:500}") int tamanoMaximo) {
+        this.tamanoDefecto = tamanoDefecto;
+        this.tamanoMaximo = tamanoMaximo;
+    }
+
+    public int limite(Integer solicitado) {
+        if (solicitado == null) {
+            return tamanoDefecto;
+        }
+        if (solicitado < 1 || solicitado > tamanoMaximo) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + tamanoMaximo);
+        }
+        return solicitado;
+    }
+
+    // Se pide una fila de más para saber si existe una página siguiente sin hacer COUNT
+    public Pageable unaPagina(int limite) {
+        return PageRequest.of(0, limite + 1);
+    }
+}
@@ -1,9 +1,14 @@
 package com.example.apartamentos.services;
 
+import com.example.apartamentos.dto.MovimientoPago;
+import com.example.apartamentos.dto.PagoResumen;
+import com.example.apartamentos.dto.PaginaCursor;
 import com.example.apartamentos.models.PagoModel;
 import com.example.apartamentos.repositories.IPagoRepository;
+import com.example.apartamentos.util.TrasCommit;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,24 +17,44 @@ import java.util.Optional;
 public class PagoService {
 
     private final IPagoRepository pagoRepository;
+    private final Paginacion paginacion;
+    private final RendimientoMensual rendimientoMensual;
 
-    public PagoService(IPagoRepository pagoRepository) {
+    public PagoService(IPagoRepository pagoRepository, Paginacion paginacion, RendimientoMensual rendimientoMensual) {
         this.pagoRepository = pagoRepository;
+        this.paginacion = paginacion;
+        this.rendimientoMensual = rendimientoMensual;
     }
 
-    public List<PagoModel> getAllPagos() {
-        return pagoRepository.findAll();
+    public PaginaCursor<PagoResumen> getAllPagos(String cursor, Integer limite) {
+        int tamano = paginacion.limite(limite);
+        List<PagoResumen> filas = pagoRepository.findPageAfter(PaginaCursor.decodificar(cursor), paginacion.unaPagina(tamano));
+        return PaginaCursor.de(filas, tamano, PagoResumen::idPago);
     }
 
     public Optional<PagoModel> getPagoById(Integer id) {
         return pagoRepository.findById(id);
     }
 
+    // Tras el commit se recalcula el rendimiento del mes del pago, y del mes anterior si cambió
+    @Transactional
     public PagoModel savePago(PagoModel pago) {
-        return pagoRepository.save(pago);
+        Optional<MovimientoPago> anterior = pago.getIdPago() == null
+            ? Optional.empty()
+            : pagoRepository.findMovimiento(pago.getIdPago());
+        PagoModel guardado = pagoRepository.saveAndFlush(pago);
+        Optional<MovimientoPago> nuevo = pagoRepository.findMovimiento(guardado.getIdPago());
+        TrasCommit.ejecutar(() -> {
+            anterior.filter(a -> !a.equals(nuevo.orElse(null))).ifPresent(rendimientoMensual::programar);
+            nuevo.ifPresent(rendimientoMensual::programar);
+        });
+        return guardado;
     }
 
+    @Transactional
     public void deletePago(Integer id) {
+        Optional<MovimientoPago> anterior = pagoRepository.findMovimiento(id.longValue());
         pagoRepository.deleteById(id);
+        anterior.ifPresent(a -> TrasCommit.ejecutar(() -> rendimientoMensual.programar(a)));
     }
 }
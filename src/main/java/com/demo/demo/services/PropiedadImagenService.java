@@ -8,6 +8,8 @@ import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.example.apartamentos.dto.ImagenResumen;
+import com.example.apartamentos.dto.PaginaCursor;
 import com.example.apartamentos.models.PropiedadimagenModel;
 import com.example.apartamentos.repositories.IPropiedadImagenRepository;
 
@@ -17,8 +19,13 @@ public class PropiedadImagenService {
     @Autowired
     private IPropiedadImagenRepository propiedadImagenRepository;
 
-    public List<PropiedadimagenModel> getAllImagenes() {
-        return propiedadImagenRepository.findAll();
+    @Autowired
+    private Paginacion paginacion;
+
+    public PaginaCursor<ImagenResumen> getAllImagenes(String cursor, Integer limite) {
+        int tamano = paginacion.limite(limite);
+        List<ImagenResumen> filas = propiedadImagenRepository.findPageAfter(PaginaCursor.decodificar(cursor), paginacion.unaPagina(tamano));
+        return PaginaCursor.de(filas, tamano, ImagenResumen::idImagen);
     }
 
     public Optional<PropiedadimagenModel> getImagenById(Long id) {
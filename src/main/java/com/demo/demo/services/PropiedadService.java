@@ -1,11 +1,19 @@
 package com.example.apartamentos.services;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import com.example.apartamentos.dto.PaginaCursor;
+import com.example.apartamentos.dto.PropiedadDetalle;
+import com.example.apartamentos.dto.PropiedadResumen;
 import com.example.apartamentos.models.PropiedadModel;
 import com.example.apartamentos.repositories.IPropiedadRepository;
 
@@ -15,25 +23,85 @@ public class PropiedadService {
     @Autowired
     private IPropiedadRepository propiedadRepository;
 
-    public List<PropiedadModel> getAllPropiedades() {
-        return propiedadRepository.findAll();
+    @Autowired
+    private Paginacion paginacion;
+
+    @Autowired
+    private CalendarioPrecios calendarioPrecios;
+
+    @Autowired
+    private IndiceTexto indiceTexto;
+
+    @Autowired
+    private IndiceComodidades indiceComodidades;
+
+    @Autowired
+    private CachePropiedades cachePropiedades;
+
+    public PaginaCursor<PropiedadResumen> getAllPropiedades(String cursor, Integer limite) {
+        int tamano = paginacion.limite(limite);
+        List<PropiedadResumen> filas = propiedadRepository.findResumenPageAfter(PaginaCursor.decodificar(cursor), paginacion.unaPagina(tamano));
+        return PaginaCursor.de(filas, tamano, PropiedadResumen::idPropiedad);
     }
 
+    // Ficha para mostrar: una consulta de proyección con el nombre del propietario, sin su contacto
+    public Optional<PropiedadDetalle> getDetallePropiedad(Long id) {
+        return propiedadRepository.findDetalleById(id);
+    }
+
+    // Lectura desde la caché: la propiedad devuelta es compartida y no debe modificarse
     public Optional<PropiedadModel> getPropiedadById(Long id) {
+        return cachePropiedades.obtener(id);
+    }
+
+    // Lectura directa para editar y guardar después con savePropiedad
+    public Optional<PropiedadModel> getPropiedadParaEditar(Long id) {
         return propiedadRepository.findById(id);
     }
 
     public PropiedadModel savePropiedad(PropiedadModel propiedad) {
-        return propiedadRepository.save(propiedad);
+        PropiedadModel guardada = propiedadRepository.save(propiedad);
+        cachePropiedades.invalidar(guardada.getId_propiedad());
+        // precio_noche puede haber cambiado
+        calendarioPrecios.invalidar(guardada.getId_propiedad());
+        indiceTexto.indexar(guardada);
+        indiceComodidades.actualizar(guardada);
+        return guardada;
     } 
     
     public void deletePropiedad(Long id) {
         propiedadRepository.deleteById(id);
+        cachePropiedades.invalidar(id);
+        calendarioPrecios.invalidar(id);
+        indiceTexto.quitar(id);
+        indiceComodidades.quitar(id);
     }
 
     // ACTIVIDAD: Crea un metodo Recuperar propiedades por tipo
 
-     public List<PropiedadModel> getPropiedadesByTipo(String tipo) {
-        return propiedadRepository.findByTipo(tipo);
+    public Map<String, Object> obtenerEstadisticasCache() {
+        return cachePropiedades.estadisticas();
+    }
+
+     public List<PropiedadResumen> getPropiedadesByTipo(String tipo) {
+        return propiedadRepository.findResumenByTipo(tipo);
+    }
+
+    // Buscar propiedades disponibles para unas fechas, con filtros opcionales y paginación
+    public Slice<PropiedadResumen> buscarDisponibles(LocalDate fechaEntrada, LocalDate fechaSalida, String ciudad,
+            Integer capacidad, Double precioMin, Double precioMax, int pagina, int tamano) {
+        if (fechaEntrada == null || fechaSalida == null) {
+            throw new IllegalArgumentException("Las fechas no pueden ser nulas");
+        }
+        if (!fechaSalida.isAfter(fechaEntrada)) {
+            throw new IllegalArgumentException("La fecha de salida debe ser posterior a la fecha de entrada");
+        }
+        if (pagina < 0 || tamano < 1 || tamano > 100) {
+            throw new IllegalArgumentException("La página debe ser >= 0 y el tamaño entre 1 y 100");
+        }
+
+        PageRequest pageRequest = PageRequest.of(pagina, tamano, Sort.by("id_propiedad"));
+        return propiedadRepository.findAvailableBetween(
+            fechaEntrada, fechaSalida, ciudad, capacidad, precioMin, precioMax, pageRequest);
     }
 }
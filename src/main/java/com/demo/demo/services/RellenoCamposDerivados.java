@@ -0,0 +1,156 @@
+package com.example.apartamentos.services;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.apartamentos.dto.CamposBasePropiedad;
+import com.example.apartamentos.models.Comodidad;
+import com.example.apartamentos.models.MensajeModel;
+import com.example.apartamentos.models.ResenaModel;
+import com.example.apartamentos.repositories.IMensajeRepository;
+import com.example.apartamentos.repositories.IMensajesNoLeidosRepository;
+import com.example.apartamentos.repositories.IPropiedadRepository;
+import com.example.apartamentos.repositories.IResenaRepository;
+import com.example.apartamentos.util.Geohash;
+
+// Al arrancar calcula las columnas derivadas (geohash, comodidades_mask y agregados de reseñas
+// de las propiedades; id_propiedad y extractos de las reseñas; participantes y extracto de los
+// mensajes; contador de no leídos de los clientes) de las filas que aún no las tienen, porque se guardaron antes de que
+// existieran. Las nuevas y las editadas las calculan al guardarse (PropiedadModel.recalcularCamposDerivados,
+// ResenaModel, MensajeModel, ResenaService, MensajeService, ClienteService).
+@Component
+public class RellenoCamposDerivados {
+
+    private static final Logger log = LoggerFactory.getLogger(RellenoCamposDerivados.class);
+
+    private final IPropiedadRepository propiedadRepository;
+    private final IResenaRepository resenaRepository;
+    private final IMensajeRepository mensajeRepository;
+    private final IMensajesNoLeidosRepository noLeidosRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanoLote;
+
+    public RellenoCamposDerivados(IPropiedadRepository propiedadRepository,
+                                  IResenaRepository resenaRepository,
+                                  IMensajeRepository mensajeRepository,
+                                  IMensajesNoLeidosRepository noLeidosRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${propiedades.relleno-lote:500}") int tamanoLote) {
+        this.propiedadRepository = propiedadRepository;
+        this.resenaRepository = resenaRepository;
+        this.mensajeRepository = mensajeRepository;
+        this.noLeidosRepository = noLeidosRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.tamanoLote = tamanoLote;
+    }
+
+    // Antes que los índices en memoria que se cargan al arrancar
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void rellenar() {
+        int total = 0;
+        int rellenadas;
+        do {
+            rellenadas = transactionTemplate.execute(status -> rellenarLote());
+            total += rellenadas;
+        } while (rellenadas == tamanoLote);
+
+        if (total > 0) {
+            log.info("Columnas derivadas calculadas para {} propiedades existentes", total);
+        }
+
+        int conCalificaciones = 0;
+        do {
+            rellenadas = transactionTemplate.execute(status -> propiedadRepository.recalcularCalificaciones(
+                propiedadRepository.findIdsSinCalificaciones(PageRequest.of(0, tamanoLote))));
+            conCalificaciones += rellenadas;
+        } while (rellenadas == tamanoLote);
+
+        if (conCalificaciones > 0) {
+            log.info("Agregados de reseñas calculados para {} propiedades existentes", conCalificaciones);
+        }
+
+        int resenas = 0;
+        do {
+            rellenadas = transactionTemplate.execute(status -> resenaRepository.rellenarIdPropiedad(
+                resenaRepository.findIdsSinPropiedad(PageRequest.of(0, tamanoLote))));
+            resenas += rellenadas;
+        } while (rellenadas == tamanoLote);
+
+        if (resenas > 0) {
+            log.info("id_propiedad copiado a {} reseñas existentes", resenas);
+        }
+
+        int mensajes = 0;
+        do {
+            rellenadas = transactionTemplate.execute(status -> mensajeRepository.rellenarParticipantes(
+                mensajeRepository.findIdsSinParticipantes(PageRequest.of(0, tamanoLote))));
+            mensajes += rellenadas;
+        } while (rellenadas == tamanoLote);
+
+        if (mensajes > 0) {
+            log.info("Participantes calculados para {} mensajes existentes", mensajes);
+        }
+
+        int extractos = 0;
+        do {
+            rellenadas = transactionTemplate.execute(status -> {
+                List<MensajeModel> lote = mensajeRepository.findAllById(
+                    mensajeRepository.findIdsSinExtracto(PageRequest.of(0, tamanoLote)));
+                lote.forEach(MensajeModel::calcularExtracto);
+                return lote.size();
+            });
+            extractos += rellenadas;
+        } while (rellenadas == tamanoLote);
+
+        if (extractos > 0) {
+            log.info("Extracto calculado para {} mensajes existentes", extractos);
+        }
+
+        extractos = 0;
+        do {
+            rellenadas = transactionTemplate.execute(status -> {
+                List<ResenaModel> lote = resenaRepository.findAllById(
+                    resenaRepository.findIdsSinExtractos(PageRequest.of(0, tamanoLote)));
+                lote.forEach(ResenaModel::calcularExtractos);
+                return lote.size();
+            });
+            extractos += rellenadas;
+        } while (rellenadas == tamanoLote);
+
+        if (extractos > 0) {
+            log.info("Extractos calculados para {} reseñas existentes", extractos);
+        }
+
+        int contadores = 0;
+        do {
+            rellenadas = transactionTemplate.execute(status -> noLeidosRepository.crearContando(
+                noLeidosRepository.findIdsSinContador(PageRequest.of(0, tamanoLote))));
+            contadores += rellenadas;
+        } while (rellenadas == tamanoLote);
+
+        if (contadores > 0) {
+            log.info("Contador de mensajes no leídos creado para {} clientes existentes", contadores);
+        }
+    }
+
+    private int rellenarLote() {
+        List<CamposBasePropiedad> lote = propiedadRepository.findSinCamposDerivados(PageRequest.of(0, tamanoLote));
+        for (CamposBasePropiedad campos : lote) {
+            propiedadRepository.updateCamposDerivados(campos.idPropiedad(),
+                Geohash.codificar(campos.latitud(), campos.longitud(), Geohash.PRECISION_MAXIMA),
+                Comodidad.mascara(campos.comodidades()));
+        }
+        return lote.size();
+    }
+}
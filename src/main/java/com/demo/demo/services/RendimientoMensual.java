@@ -0,0 +1,293 @@
+package com.example.apartamentos.services;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.apartamentos.dto.EstanciaReservacion;
+import com.example.apartamentos.dto.MovimientoPago;
+import com.example.apartamentos.dto.PagosMes;
+import com.example.apartamentos.dto.RendimientoMes;
+import com.example.apartamentos.events.ReservacionEvento;
+import com.example.apartamentos.events.SuscriptorEventosReservacion;
+import com.example.apartamentos.models.RendimientoMensualModel;
+import com.example.apartamentos.models.ReservacionModel.EstadoReservacion;
+import com.example.apartamentos.repositories.IPagoRepository;
+import com.example.apartamentos.repositories.IPropiedadRepository;
+import com.example.apartamentos.repositories.IRendimientoMensualRepository;
+import com.example.apartamentos.repositories.IReservacionRepository;
+
+import jakarta.annotation.PreDestroy;
+
+// Mantiene rendimiento_mensual (una fila por propiedad y mes) para los reportes de ingresos y
+// ocupación. Cuando una reservación o un pago cambia, tras el commit se recalculan solo los meses
+// de esa propiedad que el cambio toca, leyendo sus reservaciones y pagos de esos meses. Recalcular
+// en lugar de sumar y restar deltas hace que repetir o reordenar un aviso no descuadre nada.
+// Una conciliación nocturna recalcula una ventana de meses de todas las propiedades y corrige lo
+// que no pasó por estos avisos (cambios directos en la base de datos, avisos perdidos al reiniciar).
+// Cada recálculo toma el candado de fila (FOR UPDATE) de su propiedad, así que dos recálculos de
+// la misma propiedad, en este nodo o en otro, nunca se pisan al leer y escribir sus filas.
+@Component
+public class RendimientoMensual implements SuscriptorEventosReservacion {
+
+    private static final Logger log = LoggerFactory.getLogger(RendimientoMensual.class);
+
+    // Rango máximo que acepta el reporte
+    private static final int MESES_MAXIMOS_REPORTE = 120;
+
+    private final IRendimientoMensualRepository rendimientoRepository;
+    private final IReservacionRepository reservacionRepository;
+    private final IPagoRepository pagoRepository;
+    private final IPropiedadRepository propiedadRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int mesesAtras;
+    private final int mesesAdelante;
+    private final int tamanoLote;
+
+    // Un solo hilo: los recálculos pedidos por los avisos no retrasan a quien los pide y salen en orden
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "rendimiento-mensual");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    public RendimientoMensual(IRendimientoMensualRepository rendimientoRepository,
+                              IReservacionRepository reservacionRepository,
+                              IPagoRepository pagoRepository,
+                              IPropiedadRepository propiedadRepository,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${rendimiento.conciliacion.meses-atras:24}") int mesesAtras,
+                              @Value("${rendimiento.conciliacion.meses-adelante:18}") int mesesAdelante,
+                              @Value("${rendimiento.conciliacion.lote:500}") int tamanoLote) {
+        this.rendimientoRepository = rendimientoRepository;
+        this.reservacionRepository = reservacionRepository;
+        this.pagoRepository = pagoRepository;
+        this.propiedadRepository = propiedadRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.mesesAtras = mesesAtras;
+        this.mesesAdelante = mesesAdelante;
+        this.tamanoLote = tamanoLote;
+    }
+
+    // Confirmar, hacer check-in o finalizar no cambia los acumulados: solo las fechas, el precio
+    // y la cancelación
+    @Override
+    public void alPublicarse(ReservacionEvento evento) {
+        if (evento instanceof ReservacionEvento.ReservationCreated creada) {
+            programar(creada.idPropiedad(), creada.fechaEntrada(), creada.fechaSalida());
+        } else if (evento instanceof ReservacionEvento.DatesChanged cambio) {
+            programar(cambio.idPropiedad(), cambio.fechaEntradaAnterior(), cambio.fechaSalidaAnterior());
+            programar(cambio.idPropiedad(), cambio.fechaEntrada(), cambio.fechaSalida());
+        } else if (evento instanceof ReservacionEvento.Cancelled cancelada) {
+            programar(cancelada.idPropiedad(), cancelada.fechaEntrada(), cancelada.fechaSalida());
+        }
+    }
+
+    // Meses que ocupa una estancia (la noche de salida no cuenta)
+    public void programar(Long idPropiedad, LocalDate fechaEntrada, LocalDate fechaSalida) {
+        YearMonth desde = YearMonth.from(fechaEntrada);
+        YearMonth hasta = fechaSalida.isAfter(fechaEntrada) ? YearMonth.from(fechaSalida.minusDays(1)) : desde;
+        programar(idPropiedad, desde, hasta);
+    }
+
+    public void programar(MovimientoPago pago) {
+        YearMonth mes = YearMonth.from(pago.fechaPago());
+        programar(pago.idPropiedad(), mes, mes);
+    }
+
+    private void programar(Long idPropiedad, YearMonth desde, YearMonth hasta) {
+        executor.execute(() -> {
+            try {
+                recalcular(idPropiedad, desde, hasta);
+            } catch (RuntimeException e) {
+                // La conciliación nocturna vuelve a calcular estos meses
+                log.error("No se pudo recalcular el rendimiento de la propiedad {} ({} a {})",
+                    idPropiedad, desde, hasta, e);
+            }
+        });
+    }
+
+    // Recalcula desde reservaciones y pagos los meses [desde, hasta] de una propiedad. Solo se
+    // escriben las filas que cambian, y no se crean filas para meses sin actividad
+    public void recalcular(Long idPropiedad, YearMonth desde, YearMonth hasta) {
+        LocalDate inicio = desde.atDay(1);
+        LocalDate fin = hasta.plusMonths(1).atDay(1);
+        transactionTemplate.executeWithoutResult(status -> {
+            // Primero el candado de la propiedad: las lecturas siguientes ya ven lo que confirmó
+            // el recálculo anterior, aunque haya corrido en otro nodo
+            if (propiedadRepository.findByIdForUpdate(idPropiedad).isEmpty()) {
+                return;
+            }
+            Map<YearMonth, Acumulado> meses = new TreeMap<>();
+            for (YearMonth mes = desde; !mes.isAfter(hasta); mes = mes.plusMonths(1)) {
+                meses.put(mes, new Acumulado());
+            }
+
+            for (EstanciaReservacion estancia : reservacionRepository.findEstancias(idPropiedad, inicio, fin)) {
+                Acumulado llegada = meses.get(YearMonth.from(estancia.fechaEntrada()));
+                if (estancia.estado() == EstadoReservacion.cancelada) {
+                    if (llegada != null) {
+                        llegada.cancelaciones++;
+                    }
+                    continue;
+                }
+                if (llegada != null) {
+                    llegada.llegadas++;
+                }
+                repartirNoches(estancia, inicio, fin, meses);
+            }
+
+            for (PagosMes pagos : pagoRepository.sumarCompletadosPorMes(idPropiedad, inicio.atStartOfDay(), fin.atStartOfDay())) {
+                Acumulado acumulado = meses.get(YearMonth.of(pagos.anio(), pagos.mes()));
+                if (acumulado != null) {
+                    acumulado.pagosCompletados += pagos.total();
+                }
+            }
+
+            Map<YearMonth, RendimientoMensualModel> existentes = new HashMap<>();
+            for (RendimientoMensualModel fila : rendimientoRepository.findEntre(idPropiedad,
+                    RendimientoMensualModel.clave(desde), RendimientoMensualModel.clave(hasta))) {
+                existentes.put(fila.getMes(), fila);
+            }
+            List<RendimientoMensualModel> nuevas = new ArrayList<>();
+            meses.forEach((mes, acumulado) -> {
+                RendimientoMensualModel fila = existentes.get(mes);
+                if (fila == null) {
+                    if (acumulado.vacio()) {
+                        return;
+                    }
+                    fila = new RendimientoMensualModel(idPropiedad, mes);
+                    nuevas.add(fila);
+                }
+                // Las filas existentes se actualizan al confirmar la transacción, solo si cambiaron
+                fila.actualizar(acumulado.noches, redondear(acumulado.ingresoBruto), acumulado.llegadas,
+                    acumulado.cancelaciones, redondear(acumulado.pagosCompletados));
+            });
+            rendimientoRepository.saveAll(nuevas);
+        });
+    }
+
+    // Reparte las noches (y el precio, en proporción) de una estancia entre los meses que toca
+    static void repartirNoches(EstanciaReservacion estancia, LocalDate inicio, LocalDate fin,
+                                       Map<YearMonth, Acumulado> meses) {
+        long nochesTotales = ChronoUnit.DAYS.between(estancia.fechaEntrada(), estancia.fechaSalida());
+        if (nochesTotales <= 0) {
+            return;
+        }
+        LocalDate dia = estancia.fechaEntrada().isBefore(inicio) ? inicio : estancia.fechaEntrada();
+        LocalDate limite = estancia.fechaSalida().isAfter(fin) ? fin : estancia.fechaSalida();
+        while (dia.isBefore(limite)) {
+            YearMonth mes = YearMonth.from(dia);
+            LocalDate finTramo = mes.plusMonths(1).atDay(1);
+            if (finTramo.isAfter(limite)) {
+                finTramo = limite;
+            }
+            long noches = ChronoUnit.DAYS.between(dia, finTramo);
+            Acumulado acumulado = meses.get(mes);
+            acumulado.noches += (int) noches;
+            acumulado.ingresoBruto += estancia.precioTotal() * noches / nochesTotales;
+            dia = finTramo;
+        }
+    }
+
+    // Reporte mensual: una fila leída por mes; los meses sin actividad salen en cero
+    public List<RendimientoMes> consultar(Long idPropiedad, YearMonth desde, YearMonth hasta) {
+        if (desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("El mes inicial debe ser anterior o igual al final");
+        }
+        if (ChronoUnit.MONTHS.between(desde, hasta) >= MESES_MAXIMOS_REPORTE) {
+            throw new IllegalArgumentException("El reporte abarca como máximo " + MESES_MAXIMOS_REPORTE + " meses");
+        }
+        Map<YearMonth, RendimientoMensualModel> filas = new HashMap<>();
+        for (RendimientoMensualModel fila : rendimientoRepository.findEntre(idPropiedad,
+                RendimientoMensualModel.clave(desde), RendimientoMensualModel.clave(hasta))) {
+            filas.put(fila.getMes(), fila);
+        }
+        List<RendimientoMes> reporte = new ArrayList<>();
+        for (YearMonth mes = desde; !mes.isAfter(hasta); mes = mes.plusMonths(1)) {
+            RendimientoMensualModel fila = filas.get(mes);
+            if (fila == null) {
+                reporte.add(new RendimientoMes(mes, 0, 0.0, 0.0, 0, 0, 0.0));
+            } else {
+                reporte.add(new RendimientoMes(mes, fila.getNoches(),
+                    Math.round(10000.0 * fila.getNoches() / mes.lengthOfMonth()) / 10000.0,
+                    fila.getIngresoBruto(), fila.getLlegadas(), fila.getCancelaciones(), fila.getPagosCompletados()));
+            }
+        }
+        return reporte;
+    }
+
+    // La primera vez (tabla vacía) se llena en segundo plano sin esperar a la conciliación nocturna.
+    // Si varios nodos arrancan a la vez todos conciliarán, pero cada propiedad se recalcula con su
+    // candado de fila y el segundo recálculo solo encuentra filas ya al día
+    @EventListener(ApplicationReadyEvent.class)
+    public void llenarSiVacia() {
+        if (rendimientoRepository.findAlguno(PageRequest.of(0, 1)).isEmpty()) {
+            executor.execute(this::conciliar);
+        }
+    }
+
+    @Scheduled(cron = "${rendimiento.conciliacion.cron:0 30 3 * * *}")
+    public void conciliar() {
+        YearMonth actual = YearMonth.now();
+        YearMonth desde = actual.minusMonths(mesesAtras);
+        YearMonth hasta = actual.plusMonths(mesesAdelante);
+        int propiedades = 0;
+        int fallidas = 0;
+        long cursor = 0;
+        List<Long> lote;
+        do {
+            lote = propiedadRepository.findIdsPageAfter(cursor, PageRequest.of(0, tamanoLote));
+            for (Long idPropiedad : lote) {
+                try {
+                    recalcular(idPropiedad, desde, hasta);
+                    propiedades++;
+                } catch (RuntimeException e) {
+                    fallidas++;
+                    log.error("Conciliación de rendimiento fallida para la propiedad {}", idPropiedad, e);
+                }
+                cursor = idPropiedad;
+            }
+        } while (lote.size() == tamanoLote);
+        log.info("Rendimiento mensual conciliado para {} propiedades ({} a {}), {} con error",
+            propiedades, desde, hasta, fallidas);
+    }
+
+    private static double redondear(double monto) {
+        return Math.round(monto * 100) / 100.0;
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdown();
+    }
+
+    static final class Acumulado {
+        int noches;
+        double ingresoBruto;
+        int llegadas;
+        int cancelaciones;
+        double pagosCompletados;
+
+        boolean vacio() {
+            return noches == 0 && llegadas == 0 && cancelaciones == 0 && pagosCompletados == 0;
+        }
+    }
+}
@@ -1,12 +1,21 @@
 package com.example.apartamentos.services;
 
+import com.example.apartamentos.dto.CalificacionesResena;
+import com.example.apartamentos.dto.PaginaCursor;
+import com.example.apartamentos.dto.ResenaPublicada;
 import com.example.apartamentos.models.ResenaModel;
+import com.example.apartamentos.repositories.IPropiedadRepository;
 import com.example.apartamentos.repositories.IResenaRepository;
+import com.example.apartamentos.repositories.IReservacionRepository;
+import com.example.apartamentos.util.TrasCommit;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -15,23 +24,118 @@ public class ResenaService {
     @Autowired
     private IResenaRepository resenaRepo;
 
-   
-    public List<ResenaModel> getAllResenas() {
-        return resenaRepo.findAll();
+    @Autowired
+    private Paginacion paginacion;
+
+    @Autowired
+    private IPropiedadRepository propiedadRepository;
+
+    @Autowired
+    private IReservacionRepository reservacionRepository;
+
+    @Autowired
+    private CachePropiedades cachePropiedades;
+
+
+    public PaginaCursor<ResenaPublicada> getAllResenas(String cursor, Integer limite) {
+        int tamano = paginacion.limite(limite);
+        List<ResenaPublicada> filas = resenaRepo.findPageAfter(PaginaCursor.decodificarEntero(cursor), paginacion.unaPagina(tamano));
+        return PaginaCursor.de(filas, tamano, ResenaPublicada::idResena);
     }
 
-    
+
     public Optional<ResenaModel> getResenaById(Integer id) {
         return resenaRepo.findById(id);
     }
 
-   
+    // Reseñas de una propiedad, de la más reciente a la más antigua. El cursor es "fecha|id" de la
+    // última reseña entregada, así que cualquier página cuesta lo mismo que la primera
+    public PaginaCursor<ResenaPublicada> getResenasDePropiedad(Long idPropiedad, String cursor, Integer limite) {
+        int tamano = paginacion.limite(limite);
+        PaginaCursor.ClaveFecha clave = PaginaCursor.decodificarFecha(cursor);
+        List<ResenaPublicada> filas = clave == null
+            ? resenaRepo.findPublicadas(idPropiedad, paginacion.unaPagina(tamano))
+            : resenaRepo.findPublicadasAntesDe(idPropiedad, clave.fecha(), clave.idEntero(),
+                paginacion.unaPagina(tamano));
+        return PaginaCursor.dePorFecha(filas, tamano, ResenaPublicada::fechaResena, ResenaPublicada::idResena);
+    }
+
+    // Guarda la reseña y, en la misma transacción, ajusta los agregados de la propiedad:
+    // al editar se quita lo que aportaba antes y se suma lo nuevo. Lo que aportaba antes se lee
+    // con la propiedad y la reseña bloqueadas: dos ediciones simultáneas de la misma reseña
+    // restarían el mismo valor anterior dos veces
+    @Transactional
     public ResenaModel saveResena(ResenaModel resena) {
-        return resenaRepo.save(resena);
+        if (resena.getReservacion() == null || resena.getReservacion().getId() == null) {
+            throw new IllegalArgumentException("La reservación es obligatoria");
+        }
+        Long idReservacion = resena.getReservacion().getId();
+        Long idPropiedad = reservacionRepository.findIdPropiedad(idReservacion)
+            .orElseThrow(() -> new IllegalArgumentException("Reservación no encontrada con ID: " + idReservacion));
+        resena.setIdPropiedad(idPropiedad);
+
+        propiedadRepository.findByIdForUpdate(idPropiedad);
+        Optional<CalificacionesResena> anterior = resena.getIdResena() == null
+            ? Optional.empty()
+            : resenaRepo.findCalificacionesForUpdate(resena.getIdResena());
+        ResenaModel guardada = resenaRepo.saveAndFlush(resena);
+        // Se relee para obtener la propiedad aunque la reservación venga solo con su id
+        CalificacionesResena nueva = resenaRepo.findCalificaciones(guardada.getIdResena()).orElseThrow();
+
+        Map<Long, Aporte> aportes = new HashMap<>();
+        anterior.ifPresent(a -> aportes.merge(a.idPropiedad(), Aporte.de(a, -1), Aporte::mas));
+        aportes.merge(nueva.idPropiedad(), Aporte.de(nueva, 1), Aporte::mas);
+        aplicar(aportes);
+        return guardada;
     }
 
-    
+    @Transactional
     public void deleteResena(Integer id) {
+        // Mismo orden de bloqueo que saveResena (propiedad y después reseña) para no cruzarse
+        resenaRepo.findCalificaciones(id).ifPresent(a -> propiedadRepository.findByIdForUpdate(a.idPropiedad()));
+        Optional<CalificacionesResena> anterior = resenaRepo.findCalificacionesForUpdate(id);
         resenaRepo.deleteById(id);
+        resenaRepo.flush();
+        anterior.ifPresent(a -> aplicar(Map.of(a.idPropiedad(), Aporte.de(a, -1))));
+    }
+
+    private void aplicar(Map<Long, Aporte> aportes) {
+        aportes.forEach((idPropiedad, aporte) -> {
+            // Propiedad sin agregados todavía: se calculan completos, ya con este cambio incluido
+            if (propiedadRepository.recalcularCalificaciones(List.of(idPropiedad)) == 0) {
+                propiedadRepository.sumarCalificaciones(idPropiedad, aporte.resenas(), aporte.general(),
+                    aporte.resenasLimpieza(), aporte.limpieza(), aporte.resenasUbicacion(), aporte.ubicacion(),
+                    aporte.resenasComunicacion(), aporte.comunicacion());
+            }
+            // Tras el commit: invalidar antes dejaría que otra lectura recargue los agregados viejos
+            TrasCommit.ejecutar(() -> cachePropiedades.invalidar(idPropiedad));
+        });
+    }
+
+    // Cambio en conteos y sumas que una reseña produce en los agregados de su propiedad
+    private record Aporte(int resenas, long general, int resenasLimpieza, long limpieza, int resenasUbicacion,
+                          long ubicacion, int resenasComunicacion, long comunicacion) {
+
+        static Aporte de(CalificacionesResena c, int signo) {
+            return new Aporte(signo, signo * valor(c.general()),
+                signo * conteo(c.limpieza()), signo * valor(c.limpieza()),
+                signo * conteo(c.ubicacion()), signo * valor(c.ubicacion()),
+                signo * conteo(c.comunicacion()), signo * valor(c.comunicacion()));
+        }
+
+        Aporte mas(Aporte otro) {
+            return new Aporte(resenas + otro.resenas, general + otro.general,
+                resenasLimpieza + otro.resenasLimpieza, limpieza + otro.limpieza,
+                resenasUbicacion + otro.resenasUbicacion, ubicacion + otro.ubicacion,
+                resenasComunicacion + otro.resenasComunicacion, comunicacion + otro.comunicacion);
+        }
+
+        private static int conteo(Integer calificacion) {
+            return calificacion == null ? 0 : 1;
+        }
+
+        private static long valor(Integer calificacion) {
+            return calificacion == null ? 0 : calificacion;
+        }
     }
 }
@@ -2,20 +2,31 @@ package com.example.apartamentos.services;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-
-import com.example.apartamentos.models.PropiedadModel;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.apartamentos.dto.PaginaCursor;
+import com.example.apartamentos.dto.IntervaloReservacion;
+import com.example.apartamentos.dto.ReservacionDetalle;
+import com.example.apartamentos.dto.ReservacionResumen;
+import com.example.apartamentos.dto.VentanaLibre;
+import com.example.apartamentos.events.DespachadorEventosReservacion;
+import com.example.apartamentos.events.ReservacionEvento;
 import com.example.apartamentos.models.ReservacionModel;
 import com.example.apartamentos.models.ReservacionModel.EstadoReservacion;
 import com.example.apartamentos.repositories.IReservacionRepository;
 import com.example.apartamentos.repositories.IPropiedadRepository;
+import com.example.apartamentos.util.TrasCommit;
 
 @Service
 public class ReservacionService {
@@ -23,29 +34,137 @@ public class ReservacionService {
     @Autowired
     private IReservacionRepository reservacionRepository;
 
+    @Autowired
+    private Paginacion paginacion;
+
     @Autowired
     private IPropiedadRepository propiedadRepository;
 
+    @Autowired
+    private IndiceOcupacion indiceOcupacion;
+
+    @Autowired
+    private BloqueoPropiedades bloqueoPropiedades;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private GeneradorCodigoReserva generadorCodigoReserva;
+
+    @Autowired
+    private CalendarioPrecios calendarioPrecios;
+
+    @Autowired
+    private CachePropiedades cachePropiedades;
+
+    @Autowired
+    private DespachadorEventosReservacion despachadorEventos;
+
+    @Autowired
+    private RendimientoMensual rendimientoMensual;
+
     // ============ MÉTODOS CRUD BÁSICOS ============
 
     // Obtener todas las reservaciones
-    public List<ReservacionModel> getAllReservaciones() {
-        return reservacionRepository.findAll();
+    // Listado por cursor: la primera página se pide sin cursor y las siguientes con el siguienteCursor recibido
+    public PaginaCursor<ReservacionResumen> getAllReservaciones(String cursor, Integer limite) {
+        int tamano = paginacion.limite(limite);
+        List<ReservacionResumen> filas = reservacionRepository.findResumenPageAfter(PaginaCursor.decodificar(cursor), paginacion.unaPagina(tamano));
+        return PaginaCursor.de(filas, tamano, ReservacionResumen::idReservacion);
     }
 
-    // Obtener una reservación por su ID
-    public Optional<ReservacionModel> getReservacionById(Long id) {
-        return reservacionRepository.findById(id);
+    // Obtener una reservación por su ID (vista de detalle, una sola consulta)
+    public Optional<ReservacionDetalle> getReservacionById(Long id) {
+        return reservacionRepository.findDetalleById(id);
     }
 
     // Guardar o actualizar una reservación
+    @Transactional
     public ReservacionModel saveReservacion(ReservacionModel reservacion) {
-        return reservacionRepository.save(reservacion);
+        // Estado, propiedad y fechas antes del cambio: para los eventos y para recalcular sus meses
+        Optional<ReservacionDetalle> anterior = reservacion.getId() == null
+            ? Optional.empty()
+            : reservacionRepository.findDetalleById(reservacion.getId());
+        ReservacionModel guardada = reservacionRepository.save(reservacion);
+        Long idPropiedad = guardada.getPropiedad().getId_propiedad();
+
+        if (anterior.isEmpty()) {
+            despachadorEventos.publicar(new ReservacionEvento.ReservationCreated(
+                guardada.getId(), idPropiedad, idCliente(guardada),
+                guardada.getFechaEntrada(), guardada.getFechaSalida(),
+                guardada.getPrecioTotal(), guardada.getEstado()));
+        } else {
+            publicarCambios(anterior.get(), guardada);
+        }
+
+        LocalDate fechaEntrada = guardada.getFechaEntrada();
+        LocalDate fechaSalida = guardada.getFechaSalida();
+        EstadoReservacion estado = guardada.getEstado();
+        double precioTotal = guardada.getPrecioTotal();
+        boolean bloquea = IndiceOcupacion.bloqueaFechas(estado);
+        anterior.ifPresent(a -> TrasCommit.ejecutar(() -> {
+            boolean mueve = !a.idPropiedad().equals(idPropiedad);
+            // Cambios que ningún evento describe (mover de propiedad, reactivar una cancelada):
+            // ya confirmados, el índice relee esas propiedades de la base de datos
+            if (mueve || (bloquea && !IndiceOcupacion.bloqueaFechas(a.estado()))) {
+                indiceOcupacion.invalidar(a.idPropiedad());
+                indiceOcupacion.invalidar(idPropiedad);
+            }
+
+            // RendimientoMensual ya programa los meses de ReservationCreated, DatesChanged y Cancelled;
+            // aquí solo lo que esos eventos no cubren. Los meses de la propiedad anterior al moverla:
+            if (mueve) {
+                rendimientoMensual.programar(a.idPropiedad(), a.fechaEntrada(), a.fechaSalida());
+            }
+            // Y los de la propiedad actual si no se publicó DatesChanged ni Cancelled pero cambió algo
+            // que cuenta (la propiedad, el precio o el paso de cancelada a activa)
+            boolean cubierto = !a.fechaEntrada().equals(fechaEntrada) || !a.fechaSalida().equals(fechaSalida)
+                || (estado == EstadoReservacion.cancelada && a.estado() != EstadoReservacion.cancelada);
+            boolean cuentaDistinto = mueve || a.precioTotal() != precioTotal
+                || (a.estado() == EstadoReservacion.cancelada) != (estado == EstadoReservacion.cancelada);
+            if (!cubierto && cuentaDistinto) {
+                rendimientoMensual.programar(idPropiedad, fechaEntrada, fechaSalida);
+            }
+        }));
+        return guardada;
+    }
+
+    // Eventos equivalentes a lo que cambió una edición directa
+    private void publicarCambios(ReservacionDetalle anterior, ReservacionModel guardada) {
+        Long idPropiedad = guardada.getPropiedad().getId_propiedad();
+        if (!anterior.fechaEntrada().equals(guardada.getFechaEntrada())
+                || !anterior.fechaSalida().equals(guardada.getFechaSalida())) {
+            despachadorEventos.publicar(new ReservacionEvento.DatesChanged(
+                guardada.getId(), idPropiedad, idCliente(guardada),
+                anterior.fechaEntrada(), anterior.fechaSalida(), anterior.precioTotal(),
+                guardada.getFechaEntrada(), guardada.getFechaSalida(), guardada.getPrecioTotal()));
+        }
+        if (anterior.estado() == guardada.getEstado()) {
+            return;
+        }
+        switch (guardada.getEstado()) {
+            case cancelada -> despachadorEventos.publicar(new ReservacionEvento.Cancelled(
+                guardada.getId(), idPropiedad, idCliente(guardada),
+                guardada.getFechaEntrada(), guardada.getFechaSalida(), guardada.getPrecioTotal()));
+            case confirmada -> despachadorEventos.publicar(new ReservacionEvento.Confirmed(
+                guardada.getId(), idPropiedad, idCliente(guardada)));
+            case finalizada -> despachadorEventos.publicar(new ReservacionEvento.Finalized(
+                guardada.getId(), idPropiedad, idCliente(guardada),
+                guardada.getFechaEntrada(), guardada.getFechaSalida()));
+            case pendiente -> {
+            }
+        }
     }
 
-    // Eliminar una reservación por ID
+    // Eliminar una reservación por ID. Para los suscriptores equivale a cancelarla: se liberan
+    // sus fechas y se recalculan sus meses
+    @Transactional
     public void deleteReservacion(Long id) {
+        Optional<ReservacionDetalle> anterior = reservacionRepository.findDetalleById(id);
         reservacionRepository.deleteById(id);
+        anterior.ifPresent(r -> despachadorEventos.publicar(new ReservacionEvento.Cancelled(
+            id, r.idPropiedad(), r.idCliente(), r.fechaEntrada(), r.fechaSalida(), r.precioTotal())));
     }
 
     // ============ MÉTODOS DE VALIDACIONES.MD ============
@@ -59,24 +178,18 @@ public class ReservacionService {
             throw new IllegalArgumentException("La fecha de salida debe ser posterior a la fecha de entrada");
         }
 
-        List<ReservacionModel> reservasSuperpuestas = reservacionRepository.findOverlappingReservations(
-            idPropiedad, fechaEntrada, fechaSalida
-        );
-
-        return reservasSuperpuestas.isEmpty();
+        // Se responde desde el índice en memoria en lugar de consultar MySQL en cada búsqueda
+        return !indiceOcupacion.estaOcupado(idPropiedad, fechaEntrada, fechaSalida);
     }
 
     // 2. Reservar un apartamento
     public ReservacionModel reservarApartamento(ReservacionModel reservacion) {
-        // Validar disponibilidad
-        if (!comprobarDisponibilidad(
-                reservacion.getPropiedad().getId_propiedad(),
-                reservacion.getFechaEntrada(),
-                reservacion.getFechaSalida())) {
-            throw new IllegalArgumentException("La propiedad no está disponible para las fechas seleccionadas");
-        }
+        Long idPropiedad = reservacion.getPropiedad().getId_propiedad();
 
         // Validar que la fecha de salida sea posterior a la entrada
+        if (reservacion.getFechaEntrada() == null || reservacion.getFechaSalida() == null) {
+            throw new IllegalArgumentException("Las fechas no pueden ser nulas");
+        }
         if (reservacion.getFechaSalida().isBefore(reservacion.getFechaEntrada()) ||
             reservacion.getFechaSalida().isEqual(reservacion.getFechaEntrada())) {
             throw new IllegalArgumentException("La fecha de salida debe ser posterior a la fecha de entrada");
@@ -107,83 +220,125 @@ public class ReservacionService {
             reservacion.setPrecioTotal(precioCalculado);
         }
 
-        return reservacionRepository.save(reservacion);
+        // Comprobar disponibilidad y guardar de forma atómica por propiedad: el candado local
+        // serializa las peticiones de este nodo y el SELECT ... FOR UPDATE las de otros nodos
+        return bloqueoPropiedades.ejecutar(idPropiedad, () ->
+            transactionTemplate.execute(status -> {
+                bloquearPropiedad(idPropiedad);
+                if (reservacionRepository.existsOverlappingReservation(
+                        idPropiedad, reservacion.getFechaEntrada(), reservacion.getFechaSalida())) {
+                    throw new IllegalArgumentException("La propiedad no está disponible para las fechas seleccionadas");
+                }
+                ReservacionModel guardada = reservacionRepository.save(reservacion);
+                despachadorEventos.publicar(new ReservacionEvento.ReservationCreated(
+                    guardada.getId(), idPropiedad, idCliente(guardada),
+                    guardada.getFechaEntrada(), guardada.getFechaSalida(),
+                    guardada.getPrecioTotal(), guardada.getEstado()));
+                return guardada;
+            }));
     }
 
-    // 3. Cancelar una reservación
-    public void cancelarReservacion(Long idReservacion) {
-        Optional<ReservacionModel> reservacionOpt = reservacionRepository.findById(idReservacion);
-        if (reservacionOpt.isEmpty()) {
-            throw new IllegalArgumentException("Reservación no encontrada con ID: " + idReservacion);
+    // Toma el candado de fila de la propiedad dentro de la transacción actual
+    private void bloquearPropiedad(Long idPropiedad) {
+        if (propiedadRepository.findByIdForUpdate(idPropiedad).isEmpty()) {
+            throw new IllegalArgumentException("Propiedad no encontrada con ID: " + idPropiedad);
         }
+    }
 
-        ReservacionModel reservacion = reservacionOpt.get();
-        if (reservacion.getEstado() == EstadoReservacion.finalizada) {
-            throw new IllegalArgumentException("No se puede cancelar una reservación finalizada");
-        }
-        if (reservacion.getEstado() == EstadoReservacion.cancelada) {
-            throw new IllegalArgumentException("La reservación ya está cancelada");
-        }
+    private static Long idCliente(ReservacionModel reservacion) {
+        return reservacion.getCliente() != null ? reservacion.getCliente().getId() : null;
+    }
 
-        reservacion.setEstado(EstadoReservacion.cancelada);
-        reservacionRepository.save(reservacion);
+    // 3. Cancelar una reservación
+    @Transactional
+    public void cancelarReservacion(Long idReservacion) {
+        // UPDATE condicional en lugar de guardar la entidad leída: si el barrido de pendientes ya la
+        // canceló no se publica una segunda cancelación, y no se pisan fechas que otra petición
+        // acabe de cambiar
+        if (reservacionRepository.cancelarActiva(idReservacion) == 0) {
+            EstadoReservacion estado = reservacionRepository.findDetalleById(idReservacion)
+                .map(ReservacionDetalle::estado)
+                .orElseThrow(() -> new IllegalArgumentException("Reservación no encontrada con ID: " + idReservacion));
+            throw new IllegalArgumentException(estado == EstadoReservacion.finalizada
+                ? "No se puede cancelar una reservación finalizada"
+                : "La reservación ya está cancelada");
+        }
+
+        // La fila queda bloqueada por el UPDATE hasta el commit: lo leído es lo que se canceló
+        ReservacionDetalle cancelada = reservacionRepository.findDetalleById(idReservacion).orElseThrow();
+        despachadorEventos.publicar(new ReservacionEvento.Cancelled(
+            idReservacion, cancelada.idPropiedad(), cancelada.idCliente(),
+            cancelada.fechaEntrada(), cancelada.fechaSalida(), cancelada.precioTotal()));
     }
 
     // 4. Actualizar una reservación
     public ReservacionModel actualizarReservacion(Long idReservacion, ReservacionModel reservacionActualizada) {
-        Optional<ReservacionModel> reservacionOpt = reservacionRepository.findById(idReservacion);
-        if (reservacionOpt.isEmpty()) {
-            throw new IllegalArgumentException("Reservación no encontrada con ID: " + idReservacion);
-        }
-
-        ReservacionModel reservacionExistente = reservacionOpt.get();
-
-        // No permitir actualizar si está finalizada o cancelada
-        if (reservacionExistente.getEstado() == EstadoReservacion.finalizada ||
-            reservacionExistente.getEstado() == EstadoReservacion.cancelada) {
-            throw new IllegalArgumentException("No se puede actualizar una reservación finalizada o cancelada");
-        }
-
-        // Verificar disponibilidad si cambian las fechas
-        if (!reservacionActualizada.getFechaEntrada().equals(reservacionExistente.getFechaEntrada()) ||
-            !reservacionActualizada.getFechaSalida().equals(reservacionExistente.getFechaSalida())) {
-
-            // Verificar disponibilidad excluyendo la reservación actual
-            List<ReservacionModel> reservasSuperpuestas = reservacionRepository.findOverlappingReservations(
-                reservacionExistente.getPropiedad().getId_propiedad(),
-                reservacionActualizada.getFechaEntrada(),
-                reservacionActualizada.getFechaSalida()
-            );
-
-            // Filtrar la reservación actual de las superpuestas
-            reservasSuperpuestas.removeIf(r -> r.getId().equals(idReservacion));
-
-            if (!reservasSuperpuestas.isEmpty()) {
-                throw new IllegalArgumentException("La propiedad no está disponible para las nuevas fechas");
-            }
-        }
-
-        // Actualizar campos
-        reservacionExistente.setFechaEntrada(reservacionActualizada.getFechaEntrada());
-        reservacionExistente.setFechaSalida(reservacionActualizada.getFechaSalida());
-        reservacionExistente.setNumeroHuespedes(reservacionActualizada.getNumeroHuespedes());
-        reservacionExistente.setNotas(reservacionActualizada.getNotas());
+        Long idPropiedad = reservacionRepository.findIdPropiedad(idReservacion)
+            .orElseThrow(() -> new IllegalArgumentException("Reservación no encontrada con ID: " + idReservacion));
+
+        // Mover fechas compite con reservarApartamento: mismo candado por propiedad
+        return bloqueoPropiedades.ejecutar(idPropiedad, () ->
+            transactionTemplate.execute(status -> {
+                // Se lee con FOR UPDATE: el estado comprobado aquí es el que se guarda, sin que el
+                // barrido de pendientes la cancele entre la lectura y el guardado
+                ReservacionModel reservacionExistente = reservacionRepository.findByIdForUpdate(idReservacion)
+                    .orElseThrow(() -> new IllegalArgumentException("Reservación no encontrada con ID: " + idReservacion));
+
+                // No permitir actualizar si está finalizada o cancelada
+                if (reservacionExistente.getEstado() == EstadoReservacion.finalizada ||
+                    reservacionExistente.getEstado() == EstadoReservacion.cancelada) {
+                    throw new IllegalArgumentException("No se puede actualizar una reservación finalizada o cancelada");
+                }
 
-        // Recalcular precio total si cambiaron las fechas
-        if (!reservacionActualizada.getFechaEntrada().equals(reservacionExistente.getFechaEntrada()) ||
-            !reservacionActualizada.getFechaSalida().equals(reservacionExistente.getFechaSalida())) {
-            double precioCalculado = calcularPrecioTotal(
-                reservacionExistente.getPropiedad().getId_propiedad(),
-                reservacionActualizada.getFechaEntrada(),
-                reservacionActualizada.getFechaSalida()
-            );
-            reservacionExistente.setPrecioTotal(precioCalculado);
-        }
+                LocalDate fechaEntradaAnterior = reservacionExistente.getFechaEntrada();
+                LocalDate fechaSalidaAnterior = reservacionExistente.getFechaSalida();
+                double precioAnterior = reservacionExistente.getPrecioTotal();
+                boolean cambianFechas =
+                    !reservacionActualizada.getFechaEntrada().equals(reservacionExistente.getFechaEntrada()) ||
+                    !reservacionActualizada.getFechaSalida().equals(reservacionExistente.getFechaSalida());
+
+                // Recalcular precio total si cambiaron las fechas
+                if (cambianFechas) {
+                    double precioCalculado = calcularPrecioTotal(
+                        idPropiedad,
+                        reservacionActualizada.getFechaEntrada(),
+                        reservacionActualizada.getFechaSalida()
+                    );
+                    reservacionExistente.setPrecioTotal(precioCalculado);
+                }
 
-        return reservacionRepository.save(reservacionExistente);
+                // Actualizar campos
+                reservacionExistente.setFechaEntrada(reservacionActualizada.getFechaEntrada());
+                reservacionExistente.setFechaSalida(reservacionActualizada.getFechaSalida());
+                reservacionExistente.setNumeroHuespedes(reservacionActualizada.getNumeroHuespedes());
+                reservacionExistente.setNotas(reservacionActualizada.getNotas());
+
+                // Verificar disponibilidad si cambian las fechas
+                if (cambianFechas) {
+                    bloquearPropiedad(idPropiedad);
+
+                    // Verificar disponibilidad excluyendo la reservación actual (en la propia consulta)
+                    if (reservacionRepository.existsOverlappingReservationExcluding(
+                            idPropiedad,
+                            reservacionExistente.getFechaEntrada(),
+                            reservacionExistente.getFechaSalida(),
+                            idReservacion)) {
+                        throw new IllegalArgumentException("La propiedad no está disponible para las nuevas fechas");
+                    }
+                }
+                ReservacionModel guardada = reservacionRepository.save(reservacionExistente);
+                if (cambianFechas) {
+                    despachadorEventos.publicar(new ReservacionEvento.DatesChanged(
+                        guardada.getId(), idPropiedad, idCliente(guardada),
+                        fechaEntradaAnterior, fechaSalidaAnterior, precioAnterior,
+                        guardada.getFechaEntrada(), guardada.getFechaSalida(), guardada.getPrecioTotal()));
+                }
+                return guardada;
+            }));
     }
 
     // 5. Confirmar una reservación
+    @Transactional
     public ReservacionModel confirmarReservacion(Long idReservacion) {
         Optional<ReservacionModel> reservacionOpt = reservacionRepository.findById(idReservacion);
         if (reservacionOpt.isEmpty()) {
@@ -201,47 +356,45 @@ public class ReservacionService {
             throw new IllegalArgumentException("No se puede confirmar una reservación finalizada");
         }
 
-        reservacion.setEstado(EstadoReservacion.confirmada);
-        return reservacionRepository.save(reservacion);
+        // UPDATE condicional en lugar de guardar la entidad leída: si el barrido de pendientes la
+        // canceló después de la lectura, no se pisa la cancelación
+        if (reservacionRepository.cambiarEstado(
+                idReservacion, EstadoReservacion.pendiente, EstadoReservacion.confirmada) == 0) {
+            throw new IllegalArgumentException("La reservación ya no está pendiente y no se puede confirmar");
+        }
+
+        ReservacionModel guardada = reservacionRepository.findById(idReservacion).orElseThrow();
+        despachadorEventos.publicar(new ReservacionEvento.Confirmed(
+            guardada.getId(), guardada.getPropiedad().getId_propiedad(), idCliente(guardada)));
+        return guardada;
     }
 
     // 6. Obtener reservaciones por cliente
-    public List<ReservacionModel> obtenerReservacionesPorCliente(Long idCliente) {
-        return reservacionRepository.findByClienteId(idCliente);
+    public List<ReservacionResumen> obtenerReservacionesPorCliente(Long idCliente) {
+        return reservacionRepository.findResumenByCliente(idCliente);
     }
 
     // 7. Obtener reservaciones por propiedad
-    public List<ReservacionModel> obtenerReservacionesPorPropiedad(Long idPropiedad) {
-        return reservacionRepository.findByPropiedadIdPropiedad(idPropiedad);
+    public List<ReservacionResumen> obtenerReservacionesPorPropiedad(Long idPropiedad) {
+        return reservacionRepository.findResumenByPropiedad(idPropiedad);
     }
 
     // 8. Obtener reservaciones por estado
-    public List<ReservacionModel> obtenerReservacionesPorEstado(EstadoReservacion estado) {
-        return reservacionRepository.findByEstado(estado);
+    public List<ReservacionResumen> obtenerReservacionesPorEstado(EstadoReservacion estado) {
+        return reservacionRepository.findResumenByEstado(estado);
     }
 
     // 9. Obtener reservaciones entre fechas
-    public List<ReservacionModel> obtenerReservacionesEntreFechas(LocalDate inicio, LocalDate fin) {
+    public List<ReservacionResumen> obtenerReservacionesEntreFechas(LocalDate inicio, LocalDate fin) {
         LocalDateTime inicioDateTime = inicio.atStartOfDay();
         LocalDateTime finDateTime = fin.atTime(23, 59, 59);
-        return reservacionRepository.findByFechaReservacionBetween(inicioDateTime, finDateTime);
+        return reservacionRepository.findResumenByFechaReservacionBetween(inicioDateTime, finDateTime);
     }
 
     // 10. Calcular precio total
+    // Suma noche a noche: precio_noche salvo las fechas con precioEspecial en disponibilidad
     public Double calcularPrecioTotal(Long idPropiedad, LocalDate fechaEntrada, LocalDate fechaSalida) {
-        Optional<PropiedadModel> propiedadOpt = propiedadRepository.findById(idPropiedad);
-        if (propiedadOpt.isEmpty()) {
-            throw new IllegalArgumentException("Propiedad no encontrada con ID: " + idPropiedad);
-        }
-
-        PropiedadModel propiedad = propiedadOpt.get();
-        long dias = ChronoUnit.DAYS.between(fechaEntrada, fechaSalida);
-
-        if (dias <= 0) {
-            throw new IllegalArgumentException("El número de días debe ser mayor que 0");
-        }
-
-        return dias * propiedad.getPrecio_noche();
+        return calendarioPrecios.cotizar(idPropiedad, fechaEntrada, fechaSalida);
     }
 
     // 11. Verificar disponibilidad entre fechas
@@ -254,38 +407,97 @@ public class ReservacionService {
         if (mes < 1 || mes > 12) {
             throw new IllegalArgumentException("El mes debe estar entre 1 y 12");
         }
+        if (anio < 1 || anio > 9999) {
+            throw new IllegalArgumentException("El año debe estar entre 1 y 9999");
+        }
+
+        YearMonth mesConsultado = YearMonth.of(anio, mes);
+        LocalDate primerDia = mesConsultado.atDay(1);
+        LocalDate ultimoDia = mesConsultado.atEndOfMonth();
 
-        List<ReservacionModel> reservaciones = reservacionRepository.findReservationsByPropertyAndMonth(
-            idPropiedad, mes, anio
+        List<IntervaloReservacion> intervalos = reservacionRepository.findIntervalsByPropiedadBetween(
+            idPropiedad, primerDia, ultimoDia
         );
 
-        List<LocalDate> diasOcupados = new ArrayList<>();
+        // Los rangos fusionados ya salen ordenados y sin días repetidos
+        return CalendarioOcupacion.expandir(CalendarioOcupacion.fusionar(intervalos, primerDia, ultimoDia));
+    }
 
-        for (ReservacionModel reservacion : reservaciones) {
-            LocalDate fecha = reservacion.getFechaEntrada();
-            while (!fecha.isAfter(reservacion.getFechaSalida())) {
-                // Solo agregar si está en el mes solicitado
-                if (fecha.getMonthValue() == mes && fecha.getYear() == anio) {
-                    if (!diasOcupados.contains(fecha)) {
-                        diasOcupados.add(fecha);
-                    }
-                }
-                fecha = fecha.plusDays(1);
-            }
+    // 12b. Calendario de varios meses consecutivos con una sola consulta
+    public List<CalendarioOcupacion.CalendarioMes> obtenerCalendario(Long idPropiedad, int mes, int anio, int meses) {
+        if (mes < 1 || mes > 12) {
+            throw new IllegalArgumentException("El mes debe estar entre 1 y 12");
+        }
+        if (anio < 1 || anio > 9999) {
+            throw new IllegalArgumentException("El año debe estar entre 1 y 9999");
         }
+        if (meses < 1 || meses > 24) {
+            throw new IllegalArgumentException("El número de meses debe estar entre 1 y 24");
+        }
+
+        YearMonth inicio = YearMonth.of(anio, mes);
+        LocalDate primerDia = inicio.atDay(1);
+        LocalDate ultimoDia = inicio.plusMonths(meses - 1).atEndOfMonth();
 
-        diasOcupados.sort(LocalDate::compareTo);
-        return diasOcupados;
+        List<IntervaloReservacion> intervalos = reservacionRepository.findIntervalsByPropiedadBetween(
+            idPropiedad, primerDia, ultimoDia
+        );
+
+        return CalendarioOcupacion.porMes(
+            CalendarioOcupacion.fusionar(intervalos, primerDia, ultimoDia), inicio, meses);
     }
 
-    // 13. Generar código de reserva
-    public String generarCodigoReserva() {
-        String codigo = "RES-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-        // Verificar que no exista ya (muy improbable pero mejor verificar)
-        while (reservacionRepository.findByCodigoReserva(codigo) != null) {
-            codigo = "RES-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    // 12c. Fechas flexibles: primeras 'maximo' estancias libres de 'noches' noches dentro del horizonte.
+    // Una sola consulta de intervalos y una ventana deslizante sobre el bitset de días ocupados.
+    public List<VentanaLibre> buscarVentanasLibres(Long idPropiedad, int noches, LocalDate desde, int meses, int maximo) {
+        if (noches < 1 || noches > 60) {
+            throw new IllegalArgumentException("El número de noches debe estar entre 1 y 60");
         }
-        return codigo;
+        if (meses < 1 || meses > 12) {
+            throw new IllegalArgumentException("El horizonte debe estar entre 1 y 12 meses");
+        }
+        if (maximo < 1 || maximo > 50) {
+            throw new IllegalArgumentException("El máximo de resultados debe estar entre 1 y 50");
+        }
+        if (cachePropiedades.obtener(idPropiedad).isEmpty()) {
+            throw new IllegalArgumentException("Propiedad no encontrada con ID: " + idPropiedad);
+        }
+
+        LocalDate hasta = desde.plusMonths(meses);
+        List<IntervaloReservacion> intervalos = reservacionRepository.findIntervalsByPropiedadBetween(
+            idPropiedad, desde, hasta
+        );
+        BitSet ocupados = CalendarioOcupacion.aBitset(
+            CalendarioOcupacion.fusionar(intervalos, desde, hasta), desde);
+
+        // Igual que la comprobación de disponibilidad, la estancia ocupa de la entrada a la salida
+        // inclusive: la ventana mide noches + 1 días y no puede contener ningún día ocupado
+        int ultimoInicio = (int) ChronoUnit.DAYS.between(desde, hasta) - noches;
+        List<VentanaLibre> ventanas = new ArrayList<>();
+        int inicio = 0;
+        while (inicio <= ultimoInicio && ventanas.size() < maximo) {
+            int ocupado = ocupados.nextSetBit(inicio);
+            if (ocupado == -1 || ocupado > inicio + noches) {
+                LocalDate entrada = desde.plusDays(inicio);
+                LocalDate salida = entrada.plusDays(noches);
+                ventanas.add(new VentanaLibre(entrada, salida, calcularPrecioTotal(idPropiedad, entrada, salida)));
+                inicio++;
+            } else {
+                // Ninguna ventana que contenga ese día sirve: se salta justo después de él
+                inicio = ocupado + 1;
+            }
+        }
+        return ventanas;
+    }
+
+    // 13. Generar código de reserva (único por construcción, sin consultar la base de datos)
+    public String generarCodigoReserva() {
+        return generadorCodigoReserva.siguiente();
+    }
+
+    // Métricas de contención de los candados por propiedad
+    public Map<String, Object> obtenerEstadisticasBloqueo() {
+        return bloqueoPropiedades.estadisticas();
     }
 
     // 14. Enviar confirmación de reserva (stub - implementar con servicio de email)
@@ -317,6 +529,7 @@ public class ReservacionService {
     }
 
     // 16. Procesar check-in
+    @Transactional
     public ReservacionModel procesarCheckIn(Long idReservacion) {
         Optional<ReservacionModel> reservacionOpt = reservacionRepository.findById(idReservacion);
         if (reservacionOpt.isEmpty()) {
@@ -336,10 +549,14 @@ public class ReservacionService {
 
         reservacion.setFechaCheckin(LocalDateTime.now());
         // Mantener el estado como confirmada o cambiarlo a un estado "en_curso" si existe
-        return reservacionRepository.save(reservacion);
+        ReservacionModel guardada = reservacionRepository.save(reservacion);
+        despachadorEventos.publicar(new ReservacionEvento.CheckedIn(
+            guardada.getId(), guardada.getPropiedad().getId_propiedad(), idCliente(guardada)));
+        return guardada;
     }
 
     // 17. Procesar check-out
+    @Transactional
     public ReservacionModel procesarCheckOut(Long idReservacion) {
         Optional<ReservacionModel> reservacionOpt = reservacionRepository.findById(idReservacion);
         if (reservacionOpt.isEmpty()) {
@@ -358,6 +575,10 @@ public class ReservacionService {
 
         reservacion.setFechaCheckout(LocalDateTime.now());
         reservacion.setEstado(EstadoReservacion.finalizada);
-        return reservacionRepository.save(reservacion);
+        ReservacionModel guardada = reservacionRepository.save(reservacion);
+        despachadorEventos.publicar(new ReservacionEvento.Finalized(
+            guardada.getId(), guardada.getPropiedad().getId_propiedad(), idCliente(guardada),
+            guardada.getFechaEntrada(), guardada.getFechaSalida()));
+        return guardada;
     }
 }
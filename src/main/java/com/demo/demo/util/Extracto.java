@@ -0,0 +1,27 @@
+package com.example.apartamentos.util;
+
+// Fragmento corto de un texto largo para los listados: espacios y saltos de línea colapsados y,
+// si no cabe, cortado en el último espacio con "…" al final. Se guarda en su propia columna para
+// que los listados no tengan que leer la columna LOB.
+public final class Extracto {
+
+    public static final int LONGITUD = 200;
+
+    private Extracto() {
+    }
+
+    public static String de(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        String limpio = texto.strip().replaceAll("\\s+", " ");
+        if (limpio.length() <= LONGITUD) {
+            return limpio;
+        }
+        int corte = limpio.lastIndexOf(' ', LONGITUD - 1);
+        if (corte < LONGITUD / 2) {
+            corte = LONGITUD - 1;
+        }
+        return limpio.substring(0, corte).stripTrailing() + "…";
+    }
+}
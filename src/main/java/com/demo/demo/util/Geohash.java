@@ -0,0 +1,159 @@
+package com.example.apartamentos.util;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Geohash: divide el mundo en celdas alternando bits de longitud y latitud y las escribe en
+// base32. Puntos cercanos comparten prefijo, así que "todas las propiedades de una celda" es un
+// LIKE 'prefijo%' sobre una columna indexada. Incluye también la distancia haversine para
+// refinar los candidatos de la celda.
+public final class Geohash {
+
+    public static final int PRECISION_MAXIMA = 9;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    private static final double RADIO_TIERRA_KM = 6371.0088;
+    private static final double KM_POR_GRADO = Math.PI * RADIO_TIERRA_KM / 180;
+
+    private Geohash() {
+    }
+
+    public static String codificar(double latitud, double longitud, int precision) {
+        double latMin = -90, latMax = 90;
+        double lonMin = -180, lonMax = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean esLongitud = true;
+        int bits = 0;
+        int valor = 0;
+        while (hash.length() < precision) {
+            if (esLongitud) {
+                double medio = (lonMin + lonMax) / 2;
+                if (longitud >= medio) {
+                    valor = (valor << 1) | 1;
+                    lonMin = medio;
+                } else {
+                    valor <<= 1;
+                    lonMax = medio;
+                }
+            } else {
+                double medio = (latMin + latMax) / 2;
+                if (latitud >= medio) {
+                    valor = (valor << 1) | 1;
+                    latMin = medio;
+                } else {
+                    valor <<= 1;
+                    latMax = medio;
+                }
+            }
+            esLongitud = !esLongitud;
+            if (++bits == 5) {
+                hash.append(BASE32[valor]);
+                bits = 0;
+                valor = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    // Alto y ancho en grados de una celda: la longitud se lleva el bit impar de cada carácter
+    public static double altoGrados(int precision) {
+        return 180.0 / (1L << (5 * precision / 2));
+    }
+
+    public static double anchoGrados(int precision) {
+        return 360.0 / (1L << ((5 * precision + 1) / 2));
+    }
+
+    // La celda del punto y sus 8 vecinas (menos en los polos, donde no hay fila exterior)
+    public static Set<String> celdaYVecinas(double latitud, double longitud, int precision) {
+        double alto = altoGrados(precision);
+        double ancho = anchoGrados(precision);
+        Set<String> celdas = new LinkedHashSet<>();
+        for (int fila = -1; fila <= 1; fila++) {
+            double lat = latitud + fila * alto;
+            if (lat < -90 || lat > 90) {
+                continue;
+            }
+            for (int columna = -1; columna <= 1; columna++) {
+                celdas.add(codificar(Math.min(lat, 90), normalizarLongitud(longitud + columna * ancho), precision));
+            }
+        }
+        return celdas;
+    }
+
+    // Precisión más fina cuyas celdas miden al menos radioKm por lado alrededor de la latitud:
+    // así el círculo completo cae dentro de la celda del centro y sus vecinas.
+    // Devuelve 0 si ni la celda más grande alcanza (no se puede prefiltrar por celda).
+    public static int precisionParaRadio(double latitud, double radioKm) {
+        double latitudExtrema = Math.min(89.9, Math.abs(latitud) + radioKm / KM_POR_GRADO);
+        double cosLat = Math.cos(Math.toRadians(latitudExtrema));
+        for (int precision = PRECISION_MAXIMA; precision >= 1; precision--) {
+            double altoKm = altoGrados(precision) * KM_POR_GRADO;
+            double anchoKm = anchoGrados(precision) * KM_POR_GRADO * cosLat;
+            if (altoKm >= radioKm && anchoKm >= radioKm) {
+                return precision;
+            }
+        }
+        return 0;
+    }
+
+    // Celdas que cubren la caja [sur, norte] x [oeste, este], a la precisión más fina que no pase
+    // de maximoCeldas. Si oeste > este la caja cruza el antimeridiano.
+    public static Set<String> cubrirCaja(double sur, double oeste, double norte, double este, int maximoCeldas) {
+        Set<String> mejor = Set.of();
+        for (int precision = 1; precision <= PRECISION_MAXIMA; precision++) {
+            double alto = altoGrados(precision);
+            double ancho = anchoGrados(precision);
+            long columnasMundo = Math.round(360 / ancho);
+            long fila0 = (long) Math.floor((sur + 90) / alto);
+            long fila1 = (long) Math.floor((Math.min(norte, 90 - alto / 2) + 90) / alto);
+            double oesteNormalizado = normalizarLongitud(oeste);
+            double esteNormalizado = normalizarLongitud(este);
+            long col0 = (long) Math.floor((oesteNormalizado + 180) / ancho);
+            long col1 = (long) Math.floor((esteNormalizado + 180) / ancho);
+            if (oesteNormalizado > esteNormalizado) {
+                col1 += columnasMundo;
+            }
+            long filas = fila1 - fila0 + 1;
+            long columnas = este - oeste >= 360 ? columnasMundo : Math.min(col1 - col0 + 1, columnasMundo);
+            if (filas * columnas > maximoCeldas) {
+                break;
+            }
+
+            Set<String> celdas = new LinkedHashSet<>();
+            for (long fila = fila0; fila <= fila1; fila++) {
+                double lat = -90 + (fila + 0.5) * alto;
+                for (long c = 0; c < columnas; c++) {
+                    double lon = -180 + ((col0 + c) % columnasMundo + 0.5) * ancho;
+                    celdas.add(codificar(lat, lon, precision));
+                }
+            }
+            mejor = celdas;
+        }
+        return mejor;
+    }
+
+    // Distancia sobre la esfera (haversine) en kilómetros
+    public static double distanciaKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * RADIO_TIERRA_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    // Valor de 'a' de la fórmula de distanciaKm que corresponde a una distancia dada: como 'a'
+    // crece con la distancia, sirve para filtrar y ordenar por distancia sin asin ni sqrt
+    public static double haversenoParaKm(double km) {
+        double mitadAngulo = Math.min(Math.PI / 2, km / (2 * RADIO_TIERRA_KM));
+        return Math.sin(mitadAngulo) * Math.sin(mitadAngulo);
+    }
+
+    public static double kmAGradosLatitud(double km) {
+        return km / KM_POR_GRADO;
+    }
+
+    private static double normalizarLongitud(double longitud) {
+        return ((longitud + 180) % 360 + 360) % 360 - 180;
+    }
+}
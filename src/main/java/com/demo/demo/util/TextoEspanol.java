@@ -0,0 +1,57 @@
+package com.example.apartamentos.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+// Normalización de texto en español para el índice de búsqueda: minúsculas, sin acentos
+// (también ñ -> n, para que "banos" encuentre "baños"), sin palabras vacías y con una
+// reducción ligera de plurales ("playas" -> "playa", "habitaciones" -> "habitacion").
+public final class TextoEspanol {
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+        "a", "al", "algo", "algunas", "algunos", "ante", "antes", "como", "con", "contra", "cual",
+        "cuando", "de", "del", "desde", "donde", "durante", "e", "el", "ella", "ellos", "en", "entre",
+        "era", "es", "esa", "ese", "eso", "esta", "estan", "estas", "este", "esto", "estos", "fue",
+        "ha", "hay", "hasta", "la", "las", "le", "les", "lo", "los", "mas", "me", "mi", "muy", "ni",
+        "no", "nos", "o", "otra", "otras", "otro", "otros", "para", "pero", "poco", "por", "porque",
+        "que", "quien", "se", "ser", "si", "sin", "sobre", "son", "su", "sus", "tambien", "tiene",
+        "todo", "todos", "u", "un", "una", "unas", "uno", "unos", "y", "ya");
+
+    private TextoEspanol() {
+    }
+
+    // Términos del texto en el orden en que aparecen (con repeticiones)
+    public static List<String> terminos(String texto) {
+        List<String> terminos = new ArrayList<>();
+        if (texto == null || texto.isBlank()) {
+            return terminos;
+        }
+        String plano = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto.toLowerCase(Locale.ROOT), Normalizer.Form.NFD))
+            .replaceAll("");
+        for (String palabra : SEPARADORES.split(plano)) {
+            if (palabra.length() < 2 || PALABRAS_VACIAS.contains(palabra)) {
+                continue;
+            }
+            terminos.add(singular(palabra));
+        }
+        return terminos;
+    }
+
+    private static String singular(String palabra) {
+        int n = palabra.length();
+        if (n > 4 && palabra.endsWith("es") && "lnrdz".indexOf(palabra.charAt(n - 3)) >= 0) {
+            return palabra.substring(0, n - 2);
+        }
+        if (n > 3 && palabra.endsWith("s") && !palabra.endsWith("ss")) {
+            return palabra.substring(0, n - 1);
+        }
+        return palabra;
+    }
+}
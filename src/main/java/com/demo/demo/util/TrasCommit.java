@@ -0,0 +1,25 @@
+package com.example.apartamentos.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Ejecuta una acción cuando la transacción actual confirma (y nunca si hace rollback), para avisar
+// de cambios que ya están en la base de datos. Sin transacción activa se ejecuta en el momento.
+public final class TrasCommit {
+
+    private TrasCommit() {
+    }
+
+    public static void ejecutar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.apartamentos.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class PaginaCursorTest {
+
+    @Test
+    void decodificaLoQueCodifica() {
+        assertEquals(42L, PaginaCursor.decodificar(PaginaCursor.codificar(42)));
+        assertEquals(Long.MAX_VALUE, PaginaCursor.decodificar(PaginaCursor.codificar(Long.MAX_VALUE)));
+        assertEquals(7, PaginaCursor.decodificarEntero(PaginaCursor.codificar(7)));
+    }
+
+    // Sin cursor es la primera página
+    @Test
+    void sinCursorEmpiezaDesdeElPrincipio() {
+        assertEquals(0L, PaginaCursor.decodificar(null));
+        assertEquals(0L, PaginaCursor.decodificar("  "));
+        assertEquals(0, PaginaCursor.decodificarEntero(null));
+        assertNull(PaginaCursor.decodificarFecha(""));
+    }
+
+    // Un cursor alterado por el cliente es un 400, no un 500
+    @Test
+    void rechazaCursoresMalFormados() {
+        assertThrows(IllegalArgumentException.class, () -> PaginaCursor.decodificar("no es base64!"));
+        assertThrows(IllegalArgumentException.class, () -> PaginaCursor.decodificar(PaginaCursor.codificarClave("abc")));
+        assertThrows(IllegalArgumentException.class, () -> PaginaCursor.decodificarFecha(PaginaCursor.codificar(5)));
+        assertThrows(IllegalArgumentException.class,
+            () -> PaginaCursor.decodificarFecha(PaginaCursor.codificarClave("ayer|5")));
+        assertThrows(IllegalArgumentException.class,
+            () -> PaginaCursor.decodificarFecha(PaginaCursor.codificarClave("2025-01-01T10:00|x")));
+    }
+
+    // Acepta el base64 con relleno aunque se codifique sin él
+    @Test
+    void aceptaBase64ConRelleno() {
+        String conRelleno = Base64.getUrlEncoder().encodeToString("12".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(12L, PaginaCursor.decodificar(conRelleno));
+    }
+
+    @Test
+    void rechazaIdsFueraDelRangoDeInt() {
+        String cursor = PaginaCursor.codificar(Integer.MAX_VALUE + 1L);
+
+        assertThrows(IllegalArgumentException.class, () -> PaginaCursor.decodificarEntero(cursor));
+        assertThrows(IllegalArgumentException.class,
+            () -> new PaginaCursor.ClaveFecha(LocalDateTime.now(), Integer.MIN_VALUE - 1L).idEntero());
+    }
+
+    // La fila extra solo indica que hay más: no se entrega y el cursor apunta a la última entregada
+    @Test
+    void laFilaExtraGeneraElCursor() {
+        PaginaCursor<Long> pagina = PaginaCursor.de(List.of(3L, 5L, 8L), 2, id -> id);
+
+        assertEquals(List.of(3L, 5L), pagina.contenido());
+        assertEquals(5L, PaginaCursor.decodificar(pagina.siguienteCursor()));
+    }
+
+    @Test
+    void sinFilaExtraNoHaySiguientePagina() {
+        PaginaCursor<Long> pagina = PaginaCursor.de(List.of(3L, 5L), 2, id -> id);
+
+        assertEquals(List.of(3L, 5L), pagina.contenido());
+        assertNull(pagina.siguienteCursor());
+    }
+
+    @Test
+    void cursorPorFechaIdaYVuelta() {
+        LocalDateTime reciente = LocalDateTime.of(2025, 3, 1, 12, 30, 15);
+        LocalDateTime anterior = LocalDateTime.of(2025, 2, 28, 9, 0);
+        List<PaginaCursor.ClaveFecha> filas = List.of(
+            new PaginaCursor.ClaveFecha(reciente, 9), new PaginaCursor.ClaveFecha(anterior, 4),
+            new PaginaCursor.ClaveFecha(anterior, 2));
+
+        PaginaCursor<PaginaCursor.ClaveFecha> pagina = PaginaCursor.dePorFecha(filas, 2,
+            PaginaCursor.ClaveFecha::fecha, PaginaCursor.ClaveFecha::id);
+
+        assertEquals(new PaginaCursor.ClaveFecha(anterior, 4), PaginaCursor.decodificarFecha(pagina.siguienteCursor()));
+        assertNull(PaginaCursor.dePorFecha(filas, 3, PaginaCursor.ClaveFecha::fecha,
+            PaginaCursor.ClaveFecha::id).siguienteCursor());
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.apartamentos.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.apartamentos.dto.TextoPropiedad;
+import com.example.apartamentos.models.PropiedadModel;
+import com.example.apartamentos.repositories.IPropiedadRepository;
+
+class IndiceTextoTest {
+
+    private final IPropiedadRepository propiedadRepository = mock(IPropiedadRepository.class);
+    private final IndiceTexto indice = new IndiceTexto(propiedadRepository, 10);
+
+    // Longitudes ponderadas (título x3, comodidades x2, descripción x1): 5, 4 y 4
+    @BeforeEach
+    void indexar() {
+        indice.indexar(propiedad(1L, "Piscina", "Departamento céntrico", null));
+        indice.indexar(propiedad(2L, "Departamento", "Tiene piscina", null));
+        indice.indexar(propiedad(3L, "Loft", "Céntrico", null));
+    }
+
+    // BM25 con k1 = 1.2 y b = 0.75; el término en el título pesa tres veces
+    @Test
+    void puntuaConBm25YPesoPorCampo() {
+        Map<Long, Double> puntajes = indice.buscar("piscinas", 10, id -> true);
+
+        assertEquals(List.of(1L, 2L), List.copyOf(puntajes.keySet()));
+        double idf = Math.log(1 + (3 - 2 + 0.5) / (2 + 0.5));
+        double longitudPromedio = 13.0 / 3;
+        assertEquals(idf * 3 * 2.2 / (3 + 1.2 * (0.25 + 0.75 * 5 / longitudPromedio)), puntajes.get(1L), 1e-9);
+        assertEquals(idf * 1 * 2.2 / (1 + 1.2 * (0.25 + 0.75 * 4 / longitudPromedio)), puntajes.get(2L), 1e-9);
+    }
+
+    // Misma frecuencia: gana el documento más corto
+    @Test
+    void normalizaPorLongitud() {
+        assertEquals(List.of(3L, 1L), List.copyOf(indice.buscar("centrico", 10, id -> true).keySet()));
+    }
+
+    // El filtro se aplica antes de recortar: el cupo no se gasta en propiedades descartadas
+    @Test
+    void filtraAntesDeRecortar() {
+        assertEquals(List.of(2L), List.copyOf(indice.buscar("piscina", 1, id -> id != 1L).keySet()));
+    }
+
+    @Test
+    void reindexarReemplazaYQuitarBorra() {
+        indice.indexar(propiedad(1L, "Cabaña", null, null));
+        indice.quitar(3L);
+
+        assertEquals(List.of(2L), List.copyOf(indice.buscar("piscina", 10, id -> true).keySet()));
+        assertEquals(List.of(1L), List.copyOf(indice.buscar("cabanas", 10, id -> true).keySet()));
+        assertTrue(indice.buscar("loft", 10, id -> true).isEmpty());
+    }
+
+    // Lo que cambia mientras se lee la base de datos se aplica sobre lo leído antes de publicar el
+    // índice nuevo: la lectura trae la versión anterior de 2 y todavía trae a 3, ya borrada
+    @Test
+    void laReconstruccionConservaLosCambiosConcurrentes() {
+        when(propiedadRepository.findTextoPageAfter(eq(0L), any())).thenAnswer(invocacion -> {
+            indice.indexar(propiedad(2L, "Cabaña", null, "wifi"));
+            indice.quitar(3L);
+            indice.indexar(propiedad(4L, "Estudio", null, null));
+            return List.of(
+                new TextoPropiedad(1L, "Piscina", "Departamento céntrico", null),
+                new TextoPropiedad(2L, "Departamento", "Tiene piscina", null),
+                new TextoPropiedad(3L, "Loft", "Céntrico", null));
+        });
+
+        indice.reconstruir();
+
+        assertEquals(List.of(2L), List.copyOf(indice.buscar("cabana wifi", 10, id -> true).keySet()));
+        assertEquals(List.of(1L), List.copyOf(indice.buscar("departamento piscina", 10, id -> true).keySet()));
+        assertTrue(indice.buscar("loft", 10, id -> true).isEmpty());
+        assertEquals(List.of(4L), List.copyOf(indice.buscar("estudio", 10, id -> true).keySet()));
+    }
+
+    // Si la lectura falla se sigue sirviendo el índice anterior
+    @Test
+    void unaReconstruccionFallidaConservaElIndice() {
+        when(propiedadRepository.findTextoPageAfter(eq(0L), any())).thenThrow(new IllegalStateException("sin conexión"));
+
+        assertThrows(IllegalStateException.class, indice::reconstruir);
+        assertEquals(List.of(3L), List.copyOf(indice.buscar("loft", 10, id -> true).keySet()));
+    }
+
+    private static PropiedadModel propiedad(Long id, String titulo, String descripcion, String comodidades) {
+        PropiedadModel propiedad = new PropiedadModel(id);
+        propiedad.setTitulo(titulo);
+        propiedad.setDescripcion(descripcion);
+        propiedad.setComodidades(comodidades);
+        return propiedad;
+    }
+}
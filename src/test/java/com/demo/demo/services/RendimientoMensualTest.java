@@ -0,0 +1,61 @@
+package com.example.apartamentos.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.apartamentos.dto.EstanciaReservacion;
+import com.example.apartamentos.models.ReservacionModel.EstadoReservacion;
+import com.example.apartamentos.services.RendimientoMensual.Acumulado;
+
+class RendimientoMensualTest {
+
+    private static final YearMonth ENERO = YearMonth.of(2030, 1);
+    private static final YearMonth FEBRERO = YearMonth.of(2030, 2);
+
+    // Del 30 de enero al 2 de febrero: dos noches (y dos tercios del precio) en enero, una en febrero
+    @Test
+    void estanciaQueCruzaDeMesSeRepartePorNoches() {
+        Map<YearMonth, Acumulado> meses = reparto(LocalDate.of(2030, 1, 30), LocalDate.of(2030, 2, 2), 300);
+
+        assertEquals(2, meses.get(ENERO).noches);
+        assertEquals(200.0, meses.get(ENERO).ingresoBruto, 1e-9);
+        assertEquals(1, meses.get(FEBRERO).noches);
+        assertEquals(100.0, meses.get(FEBRERO).ingresoBruto, 1e-9);
+    }
+
+    // La noche de salida no cuenta: salir el 1 de febrero no ocupa ninguna noche de febrero
+    @Test
+    void salidaElDiaPrimeroNoCuentaEnElMesSiguiente() {
+        Map<YearMonth, Acumulado> meses = reparto(LocalDate.of(2030, 1, 29), LocalDate.of(2030, 2, 1), 300);
+
+        assertEquals(3, meses.get(ENERO).noches);
+        assertEquals(300.0, meses.get(ENERO).ingresoBruto, 1e-9);
+        assertEquals(0, meses.get(FEBRERO).noches);
+        assertEquals(0.0, meses.get(FEBRERO).ingresoBruto, 1e-9);
+    }
+
+    // Solo se reparte lo que cae dentro de [inicio, fin): diciembre queda fuera del cálculo
+    @Test
+    void nochesFueraDelRangoNoSeCuentan() {
+        Map<YearMonth, Acumulado> meses = reparto(LocalDate.of(2029, 12, 30), LocalDate.of(2030, 1, 2), 300);
+
+        assertEquals(2, meses.size());
+        assertEquals(1, meses.get(ENERO).noches);
+        assertEquals(100.0, meses.get(ENERO).ingresoBruto, 1e-9);
+    }
+
+    private static Map<YearMonth, Acumulado> reparto(LocalDate entrada, LocalDate salida, double precio) {
+        Map<YearMonth, Acumulado> meses = new TreeMap<>();
+        meses.put(ENERO, new Acumulado());
+        meses.put(FEBRERO, new Acumulado());
+        RendimientoMensual.repartirNoches(new EstanciaReservacion(entrada, salida, precio, EstadoReservacion.confirmada),
+            ENERO.atDay(1), FEBRERO.plusMonths(1).atDay(1), meses);
+        return meses;
+    }
+}
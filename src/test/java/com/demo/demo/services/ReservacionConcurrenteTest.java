@@ -0,0 +1,164 @@
+package com.example.apartamentos.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.apartamentos.events.DespachadorEventosReservacion;
+import com.example.apartamentos.models.ClienteModel;
+import com.example.apartamentos.models.PropiedadModel;
+import com.example.apartamentos.models.ReservacionModel;
+import com.example.apartamentos.repositories.IReservacionRepository;
+
+// Reservas simultáneas de las mismas fechas contra una base de datos real (H2 en modo MySQL,
+// con bloqueo de filas). El candado por nodo se sustituye por uno que no bloquea, como si cada
+// petición llegara a una instancia distinta: solo el SELECT ... FOR UPDATE de la propiedad
+// puede impedir el doble apartado
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:reservaciones;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReservacionConcurrenteTest {
+
+    private static final int HILOS = 16;
+    private static final long ID_PROPIEDAD = 1L;
+    private static final LocalDate ENTRADA = LocalDate.now().plusDays(30);
+    private static final LocalDate SALIDA = ENTRADA.plusDays(3);
+
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = IReservacionRepository.class)
+    @EntityScan(basePackageClasses = ReservacionModel.class)
+    @Import(ReservacionService.class)
+    static class Configuracion {
+    }
+
+    @Autowired
+    private ReservacionService reservacionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private BloqueoPropiedades bloqueoPropiedades;
+
+    @MockitoBean
+    private Paginacion paginacion;
+
+    @MockitoBean
+    private IndiceOcupacion indiceOcupacion;
+
+    @MockitoBean
+    private GeneradorCodigoReserva generadorCodigoReserva;
+
+    @MockitoBean
+    private CalendarioPrecios calendarioPrecios;
+
+    @MockitoBean
+    private CachePropiedades cachePropiedades;
+
+    @MockitoBean
+    private DespachadorEventosReservacion despachadorEventos;
+
+    @MockitoBean
+    private RendimientoMensual rendimientoMensual;
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate.update("DELETE FROM reservaciones");
+        jdbcTemplate.update("DELETE FROM propiedades");
+        jdbcTemplate.update("DELETE FROM clientes");
+        jdbcTemplate.update("INSERT INTO clientes (id_cliente, tipo_cliente, nombre, apellidos, email, " +
+            "fecha_registro, estatus, password) VALUES (1, 'CLIENTE', 'Ana', 'Pérez', 'ana@correo.mx', " +
+            "CURRENT_TIMESTAMP, 'ACTIVO', 'x')");
+        jdbcTemplate.update("INSERT INTO propiedades (id_propiedad, id_propietario, tipo_propiedad, titulo, " +
+            "descripcion, direccion, ciudad, estado, codigo_postal, pais, latitud, longitud, precio_noche, " +
+            "capacidad, num_habitaciones, num_banos, metro_cuadrados, estado_hab, fecha_registro, " +
+            "fecha_actualizacion, comodidades_mask) VALUES (?, 1, 'ACTIVO', 'Depa', 'Depa centrico', " +
+            "'Calle 1', 'CDMX', 'CDMX', '06000', 'MX', 19.43, -99.13, 1000, 4, 2, 1, 60, 'DISPONIBLE', " +
+            "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0)", ID_PROPIEDAD);
+
+        // Sin candado local: todas las peticiones llegan a la vez a la base de datos
+        when(bloqueoPropiedades.ejecutar(anyLong(), any())).thenAnswer(
+            invocacion -> invocacion.<Supplier<?>>getArgument(1).get());
+    }
+
+    @Test
+    void soloUnaDeVariasReservasSimultaneasSeGuarda() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<Boolean>> intentos = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            String codigo = "RES-" + h;
+            intentos.add(executor.submit(() -> {
+                salida.await();
+                try {
+                    reservacionService.reservarApartamento(nuevaReservacion(codigo));
+                    return true;
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+            }));
+        }
+        salida.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        int aceptadas = 0;
+        for (Future<Boolean> intento : intentos) {
+            if (intento.get()) {
+                aceptadas++;
+            }
+        }
+        assertEquals(1, aceptadas);
+        assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM reservaciones WHERE id_propiedad = ?", Integer.class, ID_PROPIEDAD));
+        assertEquals(0, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM reservaciones a JOIN reservaciones b ON a.id_propiedad = b.id_propiedad " +
+            "AND a.id_reservacion < b.id_reservacion " +
+            "AND a.fecha_entrada <= b.fecha_salida AND b.fecha_entrada <= a.fecha_salida " +
+            "WHERE a.estado IN ('pendiente', 'confirmada') AND b.estado IN ('pendiente', 'confirmada')",
+            Integer.class));
+    }
+
+    private static ReservacionModel nuevaReservacion(String codigo) {
+        ClienteModel cliente = new ClienteModel();
+        cliente.setId(1L);
+        ReservacionModel reservacion = new ReservacionModel();
+        reservacion.setPropiedad(new PropiedadModel(ID_PROPIEDAD));
+        reservacion.setCliente(cliente);
+        reservacion.setFechaEntrada(ENTRADA);
+        reservacion.setFechaSalida(SALIDA);
+        reservacion.setNumeroHuespedes(2);
+        reservacion.setPrecioTotal(3000);
+        reservacion.setCodigoReserva(codigo);
+        return reservacion;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.apartamentos.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class GeohashTest {
+
+    // Valores de referencia del algoritmo estándar
+    @Test
+    void codificaComoElGeohashEstandar() {
+        assertEquals("u4pruydqq", Geohash.codificar(57.64911, 10.40744, 9));
+        assertEquals("6gkzwgjzn", Geohash.codificar(-25.382708, -49.265506, 9));
+        assertEquals("s0000", Geohash.codificar(0, 0, 5));
+    }
+
+    @Test
+    void puntosCercanosCompartenPrefijo() {
+        String centro = Geohash.codificar(19.4326, -99.1332, 9);
+        assertTrue(centro.startsWith(Geohash.codificar(19.4330, -99.1330, 6)));
+    }
+
+    @Test
+    void lasVecinasSonNueveCeldasDistintas() {
+        Set<String> celdas = Geohash.celdaYVecinas(19.4326, -99.1332, 6);
+
+        assertEquals(9, celdas.size());
+        assertTrue(celdas.contains(Geohash.codificar(19.4326, -99.1332, 6)));
+    }
+
+    // Junto al antimeridiano las vecinas del oeste y del este están al otro lado de ±180
+    @Test
+    void lasVecinasCruzanElAntimeridiano() {
+        Set<String> celdas = Geohash.celdaYVecinas(0, 179.99, 3);
+
+        assertEquals(9, celdas.size());
+        assertTrue(celdas.contains(Geohash.codificar(0, -179.99, 3)));
+        assertTrue(celdas.contains(Geohash.codificar(0.1, -179.99, 3)));
+    }
+
+    // En el polo no hay fila exterior: solo la fila de la celda y la de abajo
+    @Test
+    void enElPoloNoHayFilaExterior() {
+        Set<String> celdas = Geohash.celdaYVecinas(89.99, 0, 3);
+
+        assertEquals(6, celdas.size());
+        assertTrue(celdas.contains(Geohash.codificar(90, 0, 3)));
+    }
+
+    // Con la precisión elegida, cualquier punto a radioKm del centro cae en la celda o sus vecinas
+    @Test
+    void laPrecisionParaUnRadioCubreElCirculo() {
+        double latitud = 19.4326;
+        double longitud = -99.1332;
+        for (double radioKm : new double[] { 0.5, 1, 5, 20, 100 }) {
+            int precision = Geohash.precisionParaRadio(latitud, radioKm);
+            assertTrue(precision > 0);
+            Set<String> celdas = Geohash.celdaYVecinas(latitud, longitud, precision);
+            double dLat = Geohash.kmAGradosLatitud(radioKm);
+            double dLon = dLat / Math.cos(Math.toRadians(latitud));
+            for (int i = 0; i < 16; i++) {
+                double angulo = 2 * Math.PI * i / 16;
+                String celda = Geohash.codificar(latitud + dLat * Math.sin(angulo),
+                    longitud + dLon * Math.cos(angulo), precision);
+                assertTrue(celdas.contains(celda), "radio " + radioKm + " km, dirección " + i);
+            }
+        }
+    }
+
+    @Test
+    void sinPrecisionCuandoNiLaCeldaMayorAlcanza() {
+        assertEquals(0, Geohash.precisionParaRadio(19.4, 30000));
+    }
+
+    // Una caja que cruza el antimeridiano se cubre con celdas de ambos lados
+    @Test
+    void cubrirCajaQueCruzaElAntimeridiano() {
+        Set<String> celdas = Geohash.cubrirCaja(-1, 179, 1, -179, 16);
+
+        assertTrue(celdas.size() <= 16);
+        for (double latitud : new double[] { -0.9, 0, 0.9 }) {
+            for (double longitud : new double[] { 179.1, 179.9, -179.9, -179.1 }) {
+                String punto = Geohash.codificar(latitud, longitud, Geohash.PRECISION_MAXIMA);
+                assertTrue(celdas.stream().anyMatch(punto::startsWith), latitud + ", " + longitud);
+            }
+        }
+    }
+
+    @Test
+    void distanciaHaversine() {
+        // Ciudad de México a Guadalajara
+        assertEquals(461.07, Geohash.distanciaKm(19.4326, -99.1332, 20.6597, -103.3496), 0.01);
+        // Un grado de longitud en el ecuador, también a través de ±180
+        assertEquals(111.195, Geohash.distanciaKm(0, 179.5, 0, -179.5), 0.001);
+    }
+
+    // 'a' de la fórmula: 0 en el mismo punto, 1 en las antípodas y creciente con la distancia
+    @Test
+    void haversenoParaKm() {
+        assertEquals(0, Geohash.haversenoParaKm(0), 1e-12);
+        assertEquals(1, Geohash.haversenoParaKm(Math.PI * 6371.0088), 1e-12);
+        assertEquals(1, Geohash.haversenoParaKm(1e9), 1e-12);
+        assertTrue(Geohash.haversenoParaKm(10) < Geohash.haversenoParaKm(11));
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.apartamentos.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TextoEspanolTest {
+
+    // Mayúsculas, acentos y ñ se pliegan: "banos" debe encontrar "Baños"
+    @Test
+    void quitaAcentosYMayusculas() {
+        assertEquals(List.of("bano", "jardin", "nandu"), TextoEspanol.terminos("BAÑOS, Jardín; ñandú"));
+        assertEquals(TextoEspanol.terminos("banos"), TextoEspanol.terminos("baños"));
+    }
+
+    // Palabras vacías y de una sola letra no son términos
+    @Test
+    void descartaPalabrasVaciasYLetrasSueltas() {
+        assertEquals(List.of("cerca", "playa"), TextoEspanol.terminos("Cerca de la playa y x"));
+    }
+
+    // "-es" solo se quita tras l, n, r, d o z; en el resto basta con quitar la "s"
+    @Test
+    void reduceLosPlurales() {
+        assertEquals(List.of("habitacion", "ciudad", "luz", "playa", "casa", "clase"),
+            TextoEspanol.terminos("habitaciones ciudades luzes playas casas clases"));
+    }
+
+    // Palabras cortas y terminadas en "ss" se dejan como están
+    @Test
+    void noRecortaPalabrasCortasNiDobleEse() {
+        assertEquals(List.of("gas", "mes", "express"), TextoEspanol.terminos("gas mes express"));
+    }
+
+    // Conserva el orden y las repeticiones; los números también son términos
+    @Test
+    void conservaOrdenYRepeticiones() {
+        assertEquals(List.of("piso", "10", "piso"), TextoEspanol.terminos("piso 10, pisos"));
+    }
+
+    @Test
+    void textoVacioNoTieneTerminos() {
+        assertTrue(TextoEspanol.terminos(null).isEmpty());
+        assertTrue(TextoEspanol.terminos("   ").isEmpty());
+    }
+}